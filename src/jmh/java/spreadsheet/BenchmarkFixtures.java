@@ -0,0 +1,140 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * 效能測試用的假資料，內容只與 row index 有關，每次產生的結果相同
+ */
+public final class BenchmarkFixtures {
+
+    // 匯入檔的標題列數，與 ExcelRowParserTemplate 相同
+    public static final int IMPORT_HEADER_ROWS = 3;
+    private static final LocalDate BASE_DATE = LocalDate.of(2020, 1, 1);
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<ReportRow> reportRows(int rows) {
+        List<ReportRow> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new ReportRow(i));
+        }
+        return list;
+    }
+
+    public static Map<Integer, List<RowSpanRow>> rowSpanGroups(int rows, int groupSize) {
+        Map<Integer, List<RowSpanRow>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < rows; i++) {
+            groups.computeIfAbsent(i / groupSize, key -> new ArrayList<>(groupSize))
+                .add(new RowSpanRow(i / groupSize, i));
+        }
+        return groups;
+    }
+
+    /**
+     * 產生匯入用的 xlsx，前 3 列為標題，之後每列依 columnKinds 填入對應型別的值
+     */
+    public static File writeImportFile(Path dir, String prefix, int rows, ColumnKind[] columnKinds)
+        throws IOException {
+        File file = Files.createTempFile(dir, prefix, ".xlsx").toFile();
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook();
+             OutputStream out = new FileOutputStream(file)) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+            Sheet sheet = workbook.createSheet("Sheet1");
+            for (int rowIndex = 0; rowIndex < IMPORT_HEADER_ROWS; rowIndex++) {
+                Row row = sheet.createRow(rowIndex);
+                for (int col = 0; col < columnKinds.length; col++) {
+                    row.createCell(col).setCellValue("header" + col);
+                }
+            }
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(IMPORT_HEADER_ROWS + i);
+                for (int col = 0; col < columnKinds.length; col++) {
+                    Cell cell = row.createCell(col);
+                    switch (columnKinds[col]) {
+                        case INTEGER:
+                            cell.setCellValue(i % 1000 + col);
+                            break;
+                        case DATE:
+                            cell.setCellValue(BASE_DATE.plusDays(i % 3650));
+                            cell.setCellStyle(dateStyle);
+                            break;
+                        case ASSET_CLASS:
+                            cell.setCellValue(i % 2 == 0 ? "公規資產" : "一般資產");
+                            break;
+                        case TEXT:
+                        default:
+                            cell.setCellValue("v" + i + "-" + col);
+                            break;
+                    }
+                }
+            }
+            workbook.write(out);
+            workbook.dispose();
+        }
+        return file;
+    }
+
+    public enum ColumnKind {
+        TEXT, INTEGER, DATE, ASSET_CLASS
+    }
+
+    public static class ReportRow {
+        @ExcelColumn(colIndex = 0, colName = "編號", columnWidth = 10)
+        private Integer id;
+        @ExcelColumn(colIndex = 1, colName = "資產名稱")
+        private String name;
+        @ExcelColumn(colIndex = 2, colName = "認列處別")
+        private String department;
+        @ExcelColumn(colIndex = 3, colName = "取得成本", dataFormat = "#,##0.00")
+        private BigDecimal amount;
+        @ExcelColumn(colIndex = 4, colName = "購買日期")
+        private LocalDate purchaseDate;
+        @ExcelColumn(colIndex = 5, colName = "備註", columnWidth = 40)
+        private String remark;
+
+        ReportRow(int index) {
+            this.id = index;
+            this.name = "筆記型電腦-" + index;
+            this.department = "處別" + (index % 50);
+            this.amount = BigDecimal.valueOf(index % 100000, 2);
+            this.purchaseDate = BASE_DATE.plusDays(index % 3650);
+            this.remark = index % 10 == 0 ? "備註說明文字，長度較長以測試換行與欄寬計算" : "";
+        }
+    }
+
+    public static class RowSpanRow {
+        @ExcelColumn(colIndex = 0, colName = "群組")
+        private String groupName;
+        @ExcelColumn(colIndex = 1, colName = "群組代碼")
+        private String groupCode;
+        @ExcelColumn(colIndex = 2, colName = "項次", columnWidth = 8)
+        private Integer seq;
+        @ExcelColumn(colIndex = 3, colName = "項目")
+        private String item;
+
+        RowSpanRow(int group, int index) {
+            this.groupName = "群組" + group;
+            this.groupCode = "G" + group;
+            this.item = "項目" + index;
+        }
+    }
+}
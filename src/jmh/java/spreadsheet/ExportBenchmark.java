@@ -0,0 +1,65 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 匯出：產生工作表並寫出完整的 xlsx (寫到丟棄的串流)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ExportBenchmark {
+
+    private static final int ROW_SPAN_GROUP_SIZE = 3;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private List<BenchmarkFixtures.ReportRow> reportRows;
+    private Map<Integer, List<BenchmarkFixtures.RowSpanRow>> rowSpanGroups;
+
+    @Setup
+    public void setUp() {
+        reportRows = BenchmarkFixtures.reportRows(rows);
+        rowSpanGroups = BenchmarkFixtures.rowSpanGroups(rows, ROW_SPAN_GROUP_SIZE);
+    }
+
+    @Benchmark
+    public long generateSheet() throws Exception {
+        ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook();
+        spreadsheet.generateSheet(reportRows, 0, 0, "資產清單", true, 1);
+        return writeAndClose(spreadsheet);
+    }
+
+    @Benchmark
+    public long generateRowSpanSheet() throws Exception {
+        ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook();
+        spreadsheet.generateRowSpanSheet(rowSpanGroups, 0, 0, 2);
+        return writeAndClose(spreadsheet);
+    }
+
+    private static long writeAndClose(ExcelSpreadsheet spreadsheet) throws IOException {
+        try (spreadsheet) {
+            return spreadsheet.writeTo(OutputStream.nullOutputStream());
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.tp.asset_ap.util.FileSystemUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * readFields：載入整份 Workbook 與 SAX 串流兩種讀法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ReadFieldsBenchmark {
+
+    private static final int COLUMN_COUNT = 10;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private Path workDir;
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("read-fields-benchmark");
+        BenchmarkFixtures.ColumnKind[] kinds = new BenchmarkFixtures.ColumnKind[COLUMN_COUNT];
+        Arrays.fill(kinds, BenchmarkFixtures.ColumnKind.TEXT);
+        kinds[1] = BenchmarkFixtures.ColumnKind.INTEGER;
+        kinds[2] = BenchmarkFixtures.ColumnKind.DATE;
+        file = BenchmarkFixtures.writeImportFile(workDir, "read-fields-", rows, kinds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileSystemUtils.safeDeleteDir(workDir.toFile());
+    }
+
+    @Benchmark
+    public List<List<String>> readFieldsWorkbook() throws Exception {
+        try (ExcelSpreadsheet spreadsheet = new ExcelSpreadsheet(file, ExcelSpreadsheet.ExcelType.XSS)) {
+            return spreadsheet.readFields("Sheet1", null);
+        }
+    }
+
+    @Benchmark
+    public List<List<String>> readFieldsStreaming() {
+        return ExcelSpreadsheet.readFields(file, "Sheet1", null);
+    }
+}
@@ -0,0 +1,192 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.util.TimeUtils;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ExcelParserTemplate 的儲存格轉換，每個 operation 為一個儲存格；
+ * 以 BenchmarkRunner 執行時 gc.alloc.rate.norm 即為每個儲存格的配置量。
+ * legacy* 為改版前的轉換方式 (每個儲存格建立 DecimalFormat、Double 與 Date → OffsetDateTime，
+ * 日期文字以 TimeUtils 驗證與轉換各解析一次)，作為比較基準。
+ * 日期文字為 365 種重複出現的 yyyy/MM/dd。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class CellConversionBenchmark {
+
+    private static final int CELLS = 4096;
+    private static final LocalDate BASE_DATE = LocalDate.of(2020, 1, 1);
+    private static final DateTimeFormatter DATE_TEXT_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+    private final Converter converter = new Converter();
+    private final int[] integerColumns = {0};
+    private final int[] dateColumns = {1};
+    private final int[] intValues = new int[1];
+    private final long[] longValues = new long[1];
+    private final BitSet nullColumns = new BitSet();
+
+    private XSSFWorkbook workbook;
+    private Row[] rows;
+    private Cell[] numberCells;
+    private Cell[] dateCells;
+    private Cell[] dateTextCells;
+
+    @Setup
+    public void setUp() {
+        workbook = new XSSFWorkbook();
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+        Sheet sheet = workbook.createSheet();
+        rows = new Row[CELLS];
+        numberCells = new Cell[CELLS];
+        dateCells = new Cell[CELLS];
+        dateTextCells = new Cell[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            Row row = sheet.createRow(i);
+            numberCells[i] = row.createCell(0);
+            numberCells[i].setCellValue(i * 37 % 100000);
+            dateCells[i] = row.createCell(1);
+            dateCells[i].setCellValue(BASE_DATE.plusDays(i % 3650));
+            dateCells[i].setCellStyle(dateStyle);
+            dateTextCells[i] = row.createCell(2);
+            dateTextCells[i].setCellValue(BASE_DATE.plusDays(i % 365).format(DATE_TEXT_FORMAT));
+            rows[i] = row;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertString(Blackhole blackhole) {
+        for (Cell cell : numberCells) {
+            blackhole.consume(converter.convertCellValueToString(cell));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertInteger(Blackhole blackhole) {
+        for (Cell cell : numberCells) {
+            blackhole.consume(converter.convertCellValueToInteger(cell));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertTimeStamp(Blackhole blackhole) {
+        for (Cell cell : dateCells) {
+            blackhole.consume(converter.convertCellValueToTimeStamp(cell));
+        }
+    }
+
+    // 驗證後轉換，與 RowValidator 加上 convertRowData 相同
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertDateText(Blackhole blackhole) {
+        for (Cell cell : dateTextCells) {
+            blackhole.consume(converter.isValidDateFormat(cell));
+            blackhole.consume(converter.convertCellValueToTimeStamp(cell));
+        }
+    }
+
+    // 與 ExcelImportBinder 的 int 欄位相同，以呼叫端的陣列與 BitSet 接收結果
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertIntMasked(Blackhole blackhole) {
+        for (Row row : rows) {
+            converter.convertCellValuesToInt(row, integerColumns, intValues, nullColumns);
+            blackhole.consume(nullColumns.isEmpty());
+            blackhole.consume(intValues[0]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void convertTimeStampMasked(Blackhole blackhole) {
+        for (Row row : rows) {
+            converter.convertCellValuesToTimeStamp(row, dateColumns, longValues, nullColumns);
+            blackhole.consume(nullColumns.isEmpty());
+            blackhole.consume(longValues[0]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void legacyConvertString(Blackhole blackhole) {
+        for (Cell cell : numberCells) {
+            Double doubleValue = cell.getNumericCellValue();
+            blackhole.consume(new DecimalFormat("0").format(doubleValue));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void legacyConvertInteger(Blackhole blackhole) {
+        for (Cell cell : numberCells) {
+            Double value = cell.getNumericCellValue();
+            blackhole.consume(Integer.valueOf(value.intValue()));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void legacyConvertTimeStamp(Blackhole blackhole) {
+        for (Cell cell : dateCells) {
+            Date date = DateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue() : null;
+            blackhole.consume(TimeUtils.toUTCMilliseconds(date.toInstant().atOffset(ZoneOffset.UTC)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void legacyConvertDateText(Blackhole blackhole) {
+        for (Cell cell : dateTextCells) {
+            blackhole.consume(TimeUtils.isValidDateString(cell.getStringCellValue()));
+            Date date = TimeUtils.toDate(cell.getStringCellValue());
+            blackhole.consume(TimeUtils.toUTCMilliseconds(date.toInstant().atOffset(ZoneOffset.UTC)));
+        }
+    }
+
+    private static final class Converter extends ExcelParserTemplate<Void> {
+        @Override
+        protected Void parseEachRowData(int rowStart, int rowEnd, Sheet sheet) {
+            return null;
+        }
+    }
+}
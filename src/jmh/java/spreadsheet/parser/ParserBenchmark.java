@@ -0,0 +1,115 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.spreadsheet.BenchmarkFixtures;
+import com.tp.asset_ap.spreadsheet.BenchmarkFixtures.ColumnKind;
+import com.tp.asset_ap.util.FileSystemUtils;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 各匯入解析器：載入整份 XSSFWorkbook 與 SAX 串流兩種讀法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class ParserBenchmark {
+
+    @Param({"HARDWARE", "SOFTWARE", "HARDWARE_BIND", "SOFTWARE_BIND"})
+    private ParserType parser;
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private Path workDir;
+    private File file;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDir = Files.createTempDirectory("parser-benchmark");
+        file = BenchmarkFixtures.writeImportFile(workDir, parser.name() + "-", rows, parser.columnKinds());
+    }
+
+    @TearDown
+    public void tearDown() {
+        FileSystemUtils.safeDeleteDir(workDir.toFile());
+    }
+
+    @Benchmark
+    public Map<Integer, ?> parseWorkbook() throws Exception {
+        ExcelRowParserTemplate<?> rowParser = parser.create();
+        try (XSSFWorkbook workbook = new XSSFWorkbook(file)) {
+            rowParser.parse(workbook, 0);
+        }
+        return rowParser.getSheetData().getData();
+    }
+
+    @Benchmark
+    public Map<Integer, ?> parseStreaming() throws Exception {
+        ExcelRowParserTemplate<?> rowParser = parser.create();
+        try (InputStream is = new BufferedInputStream(new FileInputStream(file))) {
+            rowParser.parseStreaming(is, 0);
+        }
+        return rowParser.getSheetData().getData();
+    }
+
+    public enum ParserType {
+        // 欄位配置與各解析器的 *_CELL_INDEX 相同
+        HARDWARE(HardwareExcelParser::new, 19, new int[]{11, 16, 17}, new int[]{8, 12, 13}, 18),
+        SOFTWARE(SoftwareExcelParser::new, 23, new int[]{9, 12, 17}, new int[]{6, 15, 16}, -1),
+        HARDWARE_BIND(HardwareBindExcelParser::new, 8, new int[]{5}, new int[]{6, 7}, -1),
+        SOFTWARE_BIND(SoftwareBindExcelParser::new, 11, new int[]{5}, new int[]{6, 7}, -1);
+
+        private final Supplier<ExcelRowParserTemplate<?>> factory;
+        private final ColumnKind[] columnKinds;
+
+        ParserType(Supplier<ExcelRowParserTemplate<?>> factory, int columnCount,
+                   int[] integerColumns, int[] dateColumns, int assetClassColumn) {
+            this.factory = factory;
+            this.columnKinds = new ColumnKind[columnCount];
+            Arrays.fill(columnKinds, ColumnKind.TEXT);
+            for (int col : integerColumns) {
+                columnKinds[col] = ColumnKind.INTEGER;
+            }
+            for (int col : dateColumns) {
+                columnKinds[col] = ColumnKind.DATE;
+            }
+            if (assetClassColumn >= 0) {
+                columnKinds[assetClassColumn] = ColumnKind.ASSET_CLASS;
+            }
+        }
+
+        ExcelRowParserTemplate<?> create() {
+            return factory.get();
+        }
+
+        ColumnKind[] columnKinds() {
+            return columnKinds.clone();
+        }
+    }
+}
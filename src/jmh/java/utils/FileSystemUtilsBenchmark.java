@@ -0,0 +1,98 @@
+package com.tp.asset_ap.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * iterFile / deleteDir 走訪目錄樹，files 為檔案總數，每個子目錄放 FILES_PER_DIR 個檔案
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileSystemUtilsBenchmark {
+
+    private static final int FILES_PER_DIR = 100;
+
+    @Benchmark
+    public long iterFile(IterState state) {
+        LongAdder count = new LongAdder();
+        FileSystemUtils.iterFile(state.root, file -> count.increment());
+        return count.sum();
+    }
+
+    @Benchmark
+    public void deleteDir(DeleteState state) {
+        FileSystemUtils.deleteDir(state.root.toFile());
+    }
+
+    static Path createTree(int files) throws IOException {
+        Path root = Files.createTempDirectory("fs-benchmark");
+        Path dir = root;
+        for (int i = 0; i < files; i++) {
+            if (i % FILES_PER_DIR == 0) {
+                dir = Files.createDirectories(root.resolve("d" + (i / FILES_PER_DIR / FILES_PER_DIR))
+                    .resolve("d" + (i / FILES_PER_DIR)));
+            }
+            Files.createFile(dir.resolve("f" + i + ".txt"));
+        }
+        return root;
+    }
+
+    @State(Scope.Benchmark)
+    public static class IterState {
+
+        @Param({"1000", "10000", "100000"})
+        int files;
+
+        Path root;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            root = createTree(files);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            FileSystemUtils.safeDeleteDir(root.toFile());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DeleteState {
+
+        @Param({"1000", "10000", "100000"})
+        int files;
+
+        Path root;
+
+        // 每次刪除前重建目錄樹，建立時間不計入結果
+        @Setup(Level.Invocation)
+        public void setUp() throws IOException {
+            root = createTree(files);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            FileSystemUtils.safeDeleteDir(root.toFile());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * 寫入時逐格累計每一欄的最大顯示寬度，匯出前再一次設定欄寬，取代 autoSizeColumn。
+ * 不使用 AWT 字型量測，中日韓全形字元以 2 個字寬計算，已 flush 的列也會被計入。
+ * 跨欄合併的儲存格 (例如標題) 不列入計算。
+ * 每個 sheet 一個實例，同一時間只能由一個執行緒寫入。
+ */
+public class ColumnWidthEstimator {
+
+    private static final int INITIAL_COLUMNS = 16;
+    // Excel 預設字型 Calibri 11
+    private static final double DEFAULT_FONT_SIZE = 11D;
+    // 左右留白的字寬
+    private static final int PADDING = 2;
+    // Excel 欄寬上限為 255 個字
+    private static final int MAX_WIDTH = 255;
+
+    private final Sheet sheet;
+    private final Set<Long> excludedCells = new HashSet<>();
+    private double[] maxWidths = new double[INITIAL_COLUMNS];
+    private int[] maxRows = new int[INITIAL_COLUMNS];
+    // 最大值以外其餘儲存格的最大寬度，最大值所在的儲存格被排除時改用此值
+    private double[] secondWidths = new double[INITIAL_COLUMNS];
+    private int lastColumn = -1;
+
+    ColumnWidthEstimator(Sheet sheet) {
+        this.sheet = sheet;
+        Arrays.fill(maxRows, -1);
+    }
+
+    public void record(int rowIndex, int colIndex, Object value, String dataFormat, int fontSize) {
+        if (value == null || colIndex < 0) {
+            return;
+        }
+        if (!excludedCells.isEmpty() && excludedCells.contains(cellKey(rowIndex, colIndex))) {
+            return;
+        }
+        int chars = displayWidth(value, dataFormat);
+        if (chars == 0) {
+            return;
+        }
+        double width = fontSize > 0 ? chars * fontSize / DEFAULT_FONT_SIZE : chars;
+        ensureCapacity(colIndex);
+        if (width > maxWidths[colIndex]) {
+            if (maxRows[colIndex] != rowIndex) {
+                secondWidths[colIndex] = maxWidths[colIndex];
+            }
+            maxWidths[colIndex] = width;
+            maxRows[colIndex] = rowIndex;
+        } else if (width > secondWidths[colIndex] && maxRows[colIndex] != rowIndex) {
+            secondWidths[colIndex] = width;
+        }
+        if (colIndex > lastColumn) {
+            lastColumn = colIndex;
+        }
+    }
+
+    // 跨欄合併的儲存格，合併前後寫入的值都不列入欄寬
+    public void exclude(int rowIndex, int colIndex) {
+        excludedCells.add(cellKey(rowIndex, colIndex));
+        if (colIndex <= lastColumn && maxRows[colIndex] == rowIndex) {
+            maxWidths[colIndex] = secondWidths[colIndex];
+            maxRows[colIndex] = -1;
+        }
+    }
+
+    // 單位為字寬
+    public int getWidth(int colIndex) {
+        if (colIndex > lastColumn || maxWidths[colIndex] == 0) {
+            return 0;
+        }
+        return Math.min(MAX_WIDTH, (int) Math.ceil(maxWidths[colIndex]) + PADDING);
+    }
+
+    public void apply() {
+        for (int col = 0; col <= lastColumn; col++) {
+            int width = getWidth(col);
+            if (width > 0) {
+                sheet.setColumnWidth(col, width * 256);
+            }
+        }
+    }
+
+    public static int displayWidth(Object value, String dataFormat) {
+        if (value instanceof CharSequence) {
+            return displayWidth((CharSequence) value);
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 4 : 5;
+        }
+        if (value instanceof BigDecimal) {
+            return numberWidth(((BigDecimal) value).toPlainString(), dataFormat);
+        }
+        if (value instanceof Number) {
+            return numberWidth(value.toString(), dataFormat);
+        }
+        String defaultFormat = ExcelSpreadsheet.defaultDataFormat(value);
+        if (defaultFormat != null) {
+            // 日期格式的字數即為顯示的字數
+            return displayWidth(dataFormat != null ? dataFormat : defaultFormat);
+        }
+        return displayWidth(value.toString());
+    }
+
+    // 多行文字取最長的一行
+    public static int displayWidth(CharSequence text) {
+        int max = 0;
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                max = Math.max(max, width);
+                width = 0;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                width += isFullWidth(Character.toCodePoint(c, text.charAt(++i))) ? 2 : 1;
+            } else if (c != '\r') {
+                width += isFullWidth(c) ? 2 : 1;
+            }
+        }
+        return Math.max(max, width);
+    }
+
+    private static int numberWidth(String text, String dataFormat) {
+        if (dataFormat == null || dataFormat.indexOf(',') < 0) {
+            return text.length();
+        }
+        // 千分位
+        int dot = text.indexOf('.');
+        int intDigits = (dot < 0 ? text.length() : dot) - (text.startsWith("-") ? 1 : 0);
+        return text.length() + Math.max(0, (intDigits - 1) / 3);
+    }
+
+    private static boolean isFullWidth(int codePoint) {
+        return (codePoint >= 0x1100 && codePoint <= 0x115F)
+            || (codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F)
+            || (codePoint >= 0xAC00 && codePoint <= 0xD7A3)
+            || (codePoint >= 0xF900 && codePoint <= 0xFAFF)
+            || (codePoint >= 0xFE30 && codePoint <= 0xFE4F)
+            || (codePoint >= 0xFF00 && codePoint <= 0xFF60)
+            || (codePoint >= 0xFFE0 && codePoint <= 0xFFE6)
+            || (codePoint >= 0x20000 && codePoint <= 0x3FFFD);
+    }
+
+    private static long cellKey(int rowIndex, int colIndex) {
+        return ((long) rowIndex << 32) | (colIndex & 0xFFFFFFFFL);
+    }
+
+    private void ensureCapacity(int colIndex) {
+        if (colIndex < maxWidths.length) {
+            return;
+        }
+        int oldLength = maxWidths.length;
+        int capacity = Math.max(colIndex + 1, oldLength * 2);
+        maxWidths = Arrays.copyOf(maxWidths, capacity);
+        secondWidths = Arrays.copyOf(secondWidths, capacity);
+        maxRows = Arrays.copyOf(maxRows, capacity);
+        Arrays.fill(maxRows, oldLength, capacity, -1);
+    }
+}
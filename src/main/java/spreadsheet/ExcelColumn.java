@@ -32,4 +32,7 @@ public @interface ExcelColumn {
     int mergeGroupSize() default 1;
 
     boolean mergeGroupAutoColWidth() default true;
+
+    // 數值或日期格式，例如 "#,##0.00"、"yyyy/mm/dd"，空字串表示使用預設格式
+    String dataFormat() default "";
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 以 DTO class 為單位快取 @ExcelColumn 的解析結果 (欄位順序、欄寬、樣式與讀值的 MethodHandle)，
+ * 同一個 class 只會解析一次，匯出時不再對每一格做反射。
+ */
+public final class ExcelColumnBinder {
+
+    private static final ClassValue<ExcelColumnBinder> BINDERS = new ClassValue<ExcelColumnBinder>() {
+        @Override
+        protected ExcelColumnBinder computeValue(Class<?> type) {
+            return new ExcelColumnBinder(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> type;
+    private final List<Column> columns;
+
+    private ExcelColumnBinder(Class<?> type) {
+        this.type = type;
+        List<Column> list = new ArrayList<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (Field field : type.getDeclaredFields()) {
+            ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
+            if (annotation == null) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                MethodHandle getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                list.add(new Column(list.size(), field, annotation, getter));
+            } catch (IllegalAccessException | RuntimeException ex) {
+                throw new InternalServerErrorException(
+                    "無法存取欄位 " + type.getName() + "." + field.getName(), ex);
+            }
+        }
+        this.columns = Collections.unmodifiableList(list);
+    }
+
+    public static ExcelColumnBinder of(Class<?> type) {
+        return BINDERS.get(type);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public int size() {
+        return columns.size();
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    public Column getColumn(int ordinal) {
+        return columns.get(ordinal);
+    }
+
+    public static final class Column {
+        // 在有標註 @ExcelColumn 的欄位中的順序
+        private final int ordinal;
+        private final Field field;
+        private final ExcelColumn annotation;
+        private final MethodHandle getter;
+        private final SpreadsheetStyle style;
+
+        private Column(int ordinal, Field field, ExcelColumn annotation, MethodHandle getter) {
+            this.ordinal = ordinal;
+            this.field = field;
+            this.annotation = annotation;
+            this.getter = getter;
+            this.style = SpreadsheetStyle.builder().hAlign(annotation.hAlign())
+                .vAlign(annotation.vAlign()).wrapText(annotation.isWrap())
+                .fontStyle(SpreadsheetFontStyle.builder()
+                    .fontName(annotation.fontName())
+                    .fontSize(annotation.fontSize()).build())
+                .dataFormat(annotation.dataFormat().isEmpty() ? null : annotation.dataFormat())
+                .build();
+        }
+
+        public Object read(Object target) {
+            try {
+                return (Object) getter.invokeExact(target);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new InternalServerErrorException(ex);
+            }
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public Field getField() {
+            return field;
+        }
+
+        public ExcelColumn getAnnotation() {
+            return annotation;
+        }
+
+        public int getColIndex() {
+            return annotation.colIndex();
+        }
+
+        public int getColumnWidth() {
+            return annotation.columnWidth();
+        }
+
+        public SpreadsheetStyle getStyle() {
+            return style;
+        }
+    }
+}
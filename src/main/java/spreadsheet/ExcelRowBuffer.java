@@ -0,0 +1,97 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+
+/**
+ * 將串流讀到的 ExcelRowValues 轉成 POI Row，讓既有以 Row/Cell 撰寫的解析邏輯可以沿用。
+ * 只保留目前這一列，載入下一列時會移除上一列。
+ * 公式儲存格以存檔時的計算結果載入，日期以建構時指定的日期系統 (1900 或 1904) 解讀。
+ * 列存放在不限列數、不寫出暫存檔的 SXSSF 工作表，Row/Cell 為一般物件，不建立 XMLBeans 節點；
+ * 各 buffer 互不共用狀態，不同執行緒可各自使用自己的 buffer。
+ */
+public class ExcelRowBuffer implements Closeable {
+
+    private final SXSSFWorkbook workbook = new SXSSFWorkbook(null, -1);
+    private final SXSSFSheet sheet = workbook.createSheet();
+    private final CellStyle dateStyle;
+    private Row currentRow;
+
+    public ExcelRowBuffer() {
+        this(false);
+    }
+
+    // date1904 需與讀取的來源 workbook 相同，日期序號才會轉換為相同的日期
+    public ExcelRowBuffer(boolean date1904) {
+        if (date1904) {
+            CTWorkbook ctWorkbook = workbook.getXSSFWorkbook().getCTWorkbook();
+            (ctWorkbook.isSetWorkbookPr() ? ctWorkbook.getWorkbookPr() : ctWorkbook.addNewWorkbookPr())
+                .setDate1904(true);
+        }
+        dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat((short) BuiltinFormats.getBuiltinFormat("m/d/yy"));
+    }
+
+    public Row load(ExcelRowValues values) {
+        if (currentRow != null) {
+            sheet.removeRow(currentRow);
+        }
+        currentRow = sheet.createRow(values.getRowNum());
+        for (int col = 0; col < values.getLastCellNum(); col++) {
+            CellType type = values.getCachedResultType(col);
+            if (type == null) {
+                continue;
+            }
+            Cell cell = currentRow.createCell(col);
+            switch (type) {
+                case STRING:
+                    cell.setCellValue(values.getStringValue(col));
+                    break;
+                case NUMERIC:
+                    cell.setCellValue(values.getNumericValue(col));
+                    if (values.isDateFormatted(col)) {
+                        cell.setCellStyle(dateStyle);
+                    }
+                    break;
+                case BOOLEAN:
+                    cell.setCellValue(values.getBooleanValue(col));
+                    break;
+                case ERROR:
+                    cell.setCellErrorValue(toFormulaError(values.getStringValue(col)).getCode());
+                    break;
+                case BLANK:
+                default:
+                    break;
+            }
+        }
+        return currentRow;
+    }
+
+    private static FormulaError toFormulaError(String errorText) {
+        try {
+            return FormulaError.forString(errorText);
+        } catch (IllegalArgumentException ex) {
+            return FormulaError.VALUE;
+        }
+    }
+
+    // 刪除 SXSSF 建立的空白暫存檔
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.dispose();
+        } finally {
+            workbook.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.tp.asset_ap.spreadsheet;
+
+/**
+ * ExcelStreamingReader 每讀完一列呼叫一次。
+ * 傳入的 ExcelRowValues 會在下一列重複使用，不可保留參考。
+ */
+@FunctionalInterface
+public interface ExcelRowHandler {
+
+    void handleRow(ExcelRowValues row);
+
+    // 回傳 true 時停止讀取後續的列
+    default boolean isFinished() {
+        return false;
+    }
+}
@@ -0,0 +1,224 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Date1904Support;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 串流讀取時單一列的儲存格內容，由 ExcelStreamingReader 重複使用，不會為每一格建立 Cell 物件。
+ * 公式儲存格保留公式字串，值則為 Excel 存檔時的計算結果。
+ */
+public class ExcelRowValues {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int rowNum;
+    private int lastCellNum;
+    private CellType[] types = new CellType[INITIAL_CAPACITY];
+    private String[] strings = new String[INITIAL_CAPACITY];
+    private double[] numbers = new double[INITIAL_CAPACITY];
+    private boolean[] dates = new boolean[INITIAL_CAPACITY];
+    private String[] formulas = new String[INITIAL_CAPACITY];
+    private boolean date1904;
+
+    /**
+     * 複製 row 的值與是否為日期格式，公式儲存格保留公式與計算結果。
+     * 複製後的內容不再存取原本的 workbook，可交給其他執行緒讀取
+     */
+    public static ExcelRowValues copyOf(Row row) {
+        ExcelRowValues values = new ExcelRowValues();
+        values.rowNum = row.getRowNum();
+        Workbook workbook = row.getSheet().getWorkbook();
+        values.date1904 = workbook instanceof Date1904Support && ((Date1904Support) workbook).isDate1904();
+        for (Cell cell : row) {
+            int col = cell.getColumnIndex();
+            CellType type = cell.getCellType();
+            if (type == CellType.FORMULA) {
+                values.setFormula(col, cell.getCellFormula());
+                type = cell.getCachedFormulaResultType();
+            }
+            switch (type) {
+                case STRING:
+                    values.setString(col, CellType.STRING, cell.getStringCellValue());
+                    break;
+                case NUMERIC:
+                    values.setNumeric(col, cell.getNumericCellValue(), DateUtil.isCellDateFormatted(cell));
+                    break;
+                case BOOLEAN:
+                    values.setBoolean(col, cell.getBooleanCellValue());
+                    break;
+                case ERROR:
+                    byte code = cell.getErrorCellValue();
+                    values.setString(col, CellType.ERROR, FormulaError.isValidCode(code)
+                        ? FormulaError.forInt(code).getString() : FormulaError.VALUE.getString());
+                    break;
+                case BLANK:
+                default:
+                    values.setBlank(col);
+                    break;
+            }
+        }
+        return values;
+    }
+
+    void reset(int rowNum) {
+        Arrays.fill(types, 0, lastCellNum, null);
+        Arrays.fill(strings, 0, lastCellNum, null);
+        Arrays.fill(formulas, 0, lastCellNum, null);
+        this.rowNum = rowNum;
+        this.lastCellNum = 0;
+    }
+
+    void setDate1904(boolean date1904) {
+        this.date1904 = date1904;
+    }
+
+    void setString(int col, CellType type, String value) {
+        ensureCapacity(col);
+        types[col] = type;
+        strings[col] = value;
+        touch(col);
+    }
+
+    void setNumeric(int col, double value, boolean date) {
+        ensureCapacity(col);
+        types[col] = CellType.NUMERIC;
+        numbers[col] = value;
+        dates[col] = date;
+        touch(col);
+    }
+
+    void setBoolean(int col, boolean value) {
+        ensureCapacity(col);
+        types[col] = CellType.BOOLEAN;
+        numbers[col] = value ? 1 : 0;
+        touch(col);
+    }
+
+    void setBlank(int col) {
+        ensureCapacity(col);
+        types[col] = CellType.BLANK;
+        touch(col);
+    }
+
+    void setFormula(int col, String formula) {
+        ensureCapacity(col);
+        formulas[col] = formula;
+    }
+
+    private void touch(int col) {
+        if (col + 1 > lastCellNum) {
+            lastCellNum = col + 1;
+        }
+    }
+
+    private void ensureCapacity(int col) {
+        if (col < types.length) {
+            return;
+        }
+        int capacity = Math.max(col + 1, types.length * 2);
+        types = Arrays.copyOf(types, capacity);
+        strings = Arrays.copyOf(strings, capacity);
+        numbers = Arrays.copyOf(numbers, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        formulas = Arrays.copyOf(formulas, capacity);
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    // 與 Row.getLastCellNum 相同，為最後一格的 index + 1
+    public int getLastCellNum() {
+        return lastCellNum;
+    }
+
+    public boolean hasCell(int col) {
+        return col < lastCellNum && types[col] != null;
+    }
+
+    public boolean isEmpty() {
+        for (int col = 0; col < lastCellNum; col++) {
+            if (types[col] != null && types[col] != CellType.BLANK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 沒有儲存格時回傳 null
+    public CellType getCellType(int col) {
+        if (!hasCell(col)) {
+            return null;
+        }
+        return formulas[col] != null ? CellType.FORMULA : types[col];
+    }
+
+    // 公式儲存格的計算結果型別，一般儲存格與 getCellType 相同
+    public CellType getCachedResultType(int col) {
+        return hasCell(col) ? types[col] : null;
+    }
+
+    public String getStringValue(int col) {
+        return hasCell(col) ? strings[col] : null;
+    }
+
+    public double getNumericValue(int col) {
+        return hasCell(col) ? numbers[col] : 0;
+    }
+
+    public boolean isDateFormatted(int col) {
+        return hasCell(col) && types[col] == CellType.NUMERIC && dates[col];
+    }
+
+    // 日期序號是否為 1904 日期系統，與來源 workbook 相同
+    public boolean isDate1904() {
+        return date1904;
+    }
+
+    public Date getDateValue(int col) {
+        return isDateFormatted(col) ? DateUtil.getJavaDate(numbers[col], date1904) : null;
+    }
+
+    public boolean getBooleanValue(int col) {
+        return hasCell(col) && types[col] == CellType.BOOLEAN && numbers[col] != 0;
+    }
+
+    public String getFormula(int col) {
+        return hasCell(col) ? formulas[col] : null;
+    }
+
+    // 與 ExcelSpreadsheet.getCellValue 相同的字串轉換規則
+    public String getCellValue(int col) {
+        CellType type = getCellType(col);
+        if (type == null) {
+            return StringUtils.EMPTY;
+        }
+        switch (type) {
+            case STRING:
+                return strings[col];
+            case NUMERIC:
+                if (dates[col]) {
+                    return getDateValue(col).toString();
+                } else {
+                    return String.valueOf(numbers[col]);
+                }
+            case FORMULA:
+                return formulas[col];
+            case BOOLEAN:
+                return String.valueOf(numbers[col] != 0);
+            case BLANK:
+            case ERROR:
+            default:
+                return StringUtils.EMPTY;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.tp.asset_ap.spreadsheet;
 import com.tp.asset_ap.model.dto.excel.ExcelComputeDateDTO;
 import com.tp.asset_ap.util.TimeUtils;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -12,33 +13,53 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.poi.EncryptedDocumentException;
-import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DateUtil;
-import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
 import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.ss.util.RegionUtil;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.DefaultIndexedColorMap;
@@ -55,27 +76,60 @@ import com.tp.asset_ap.constant.MediaTypes;
 import com.tp.asset_ap.exception.BadRequestException;
 import com.tp.asset_ap.exception.InternalServerErrorException;
 import com.tp.asset_ap.report.SheetType;
+import com.tp.asset_ap.util.FileSystemUtils;
 import com.tp.asset_ap.util.TPStringUtils;
 
 public class ExcelSpreadsheet implements Spreadsheet {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ExcelSpreadsheet.class);
     private static final String DEFAULT_SHEET_NAME = "Sheet1";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final String DEFAULT_DATE_FORMAT = "yyyy/mm/dd";
+    private static final String DEFAULT_DATE_TIME_FORMAT = "yyyy/mm/dd hh:mm:ss";
+    // Excel 數值的有效位數，超過的數值以文字寫入
+    private static final int MAX_SIGNIFICANT_DIGITS = 15;
+    private static final long MAX_EXACT_NUMBER = 999_999_999_999_999L;
+    // 未指定 SpreadsheetTempStorage 時使用，可於應用程式啟動時設定
+    private static volatile SpreadsheetTempStorage defaultTempStorage = SpreadsheetTempStorage.DEFAULT;
     private final Workbook workbook;
-    private final Map<SpreadsheetStyle, CellStyle> styleMap = new HashMap<>();
+    private final SpreadsheetStyleRegistry styleRegistry;
+    // 啟用 trackCellWidth 的 sheet，平行寫入時與 parent 共用
+    private final Map<Sheet, ColumnWidthEstimator> widthEstimators;
+    // 啟用 trackRowHeight 的 sheet，平行寫入時與 parent 共用
+    private final Map<Sheet, RowHeightEstimator> heightEstimators;
+    // 已加入的合併儲存格數量，平行寫入時與 parent 共用
+    private final LongAdder mergedRegionCount;
+    private SpreadsheetMetrics metrics = SpreadsheetMetrics.NOOP;
+    // setCellValue 與 writeRow 寫入的列數與儲存格數，寫出時 (平行寫入為該工作表完成時) 彙總回報
+    private long pendingRows;
+    private long pendingCells;
+    // close 後暫存檔已刪除，不能再寫出
+    private boolean closed;
+    // 寫入 Instant 時使用的時區
+    private ZoneId zoneId = ZoneId.systemDefault();
     private Sheet workingSheet;
     private Row workingRow;
     private Cell workingCell;
 
     public ExcelSpreadsheet() {
-        workbook = new SXSSFWorkbook();
+        this(SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
     }
 
     public ExcelSpreadsheet(int rowAccessWindowSize) {
-        workbook = new SXSSFWorkbook(rowAccessWindowSize);
+        this(rowAccessWindowSize, defaultTempStorage);
+    }
+
+    public ExcelSpreadsheet(int rowAccessWindowSize, SpreadsheetTempStorage tempStorage) {
+        tempStorage.prepare();
+        workbook = new StreamingWorkbook(rowAccessWindowSize, tempStorage);
+        styleRegistry = new SpreadsheetStyleRegistry(workbook);
+        widthEstimators = new ConcurrentHashMap<>();
+        heightEstimators = new ConcurrentHashMap<>();
+        mergedRegionCount = new LongAdder();
     }
 
     public ExcelSpreadsheet(MultipartFile excelFile, ExcelType excelType) {
+        SpreadsheetTempStorage tempStorage = defaultTempStorage;
         try {
             XSSFWorkbook xssfWorkbook =
                 (XSSFWorkbook) WorkbookFactory.create(excelFile.getInputStream());
@@ -85,15 +139,22 @@ public class ExcelSpreadsheet implements Spreadsheet {
                     break;
                 case SXSS:
                 default:
-                    workbook = new SXSSFWorkbook(xssfWorkbook, SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+                    tempStorage.prepare();
+                    workbook = StreamingWorkbook.of(xssfWorkbook, SXSSFWorkbook.DEFAULT_WINDOW_SIZE,
+                        tempStorage);
                     break;
             }
         } catch (IOException ex) {
             throw new InternalServerErrorException(ex);
         }
+        styleRegistry = new SpreadsheetStyleRegistry(workbook);
+        widthEstimators = new ConcurrentHashMap<>();
+        heightEstimators = new ConcurrentHashMap<>();
+        mergedRegionCount = new LongAdder();
     }
 
     public ExcelSpreadsheet(File file, ExcelType excelType) {
+        SpreadsheetTempStorage tempStorage = defaultTempStorage;
         try {
             XSSFWorkbook xssfWorkbook = (XSSFWorkbook) WorkbookFactory.create(file);
             switch (excelType) {
@@ -102,21 +163,65 @@ public class ExcelSpreadsheet implements Spreadsheet {
                     break;
                 case SXSS:
                 default:
-                    workbook = new SXSSFWorkbook(xssfWorkbook, SXSSFWorkbook.DEFAULT_WINDOW_SIZE);
+                    tempStorage.prepare();
+                    workbook = StreamingWorkbook.of(xssfWorkbook, SXSSFWorkbook.DEFAULT_WINDOW_SIZE,
+                        tempStorage);
                     break;
             }
         } catch (EncryptedDocumentException | IOException ex) {
             throw new InternalServerErrorException(ex);
         }
+        styleRegistry = new SpreadsheetStyleRegistry(workbook);
+        widthEstimators = new ConcurrentHashMap<>();
+        heightEstimators = new ConcurrentHashMap<>();
+        mergedRegionCount = new LongAdder();
+    }
+
+    // SpreadsheetTemplate 使用，xssfWorkbook 已從快取的內容解析完成
+    ExcelSpreadsheet(XSSFWorkbook xssfWorkbook, ExcelType excelType) {
+        switch (excelType) {
+            case XSS:
+                workbook = xssfWorkbook;
+                break;
+            case SXSS:
+            default:
+                SpreadsheetTempStorage tempStorage = defaultTempStorage;
+                tempStorage.prepare();
+                workbook = StreamingWorkbook.of(xssfWorkbook, SXSSFWorkbook.DEFAULT_WINDOW_SIZE,
+                    tempStorage);
+                break;
+        }
+        styleRegistry = new SpreadsheetStyleRegistry(workbook);
+        widthEstimators = new ConcurrentHashMap<>();
+        heightEstimators = new ConcurrentHashMap<>();
+        mergedRegionCount = new LongAdder();
     }
 
     public ExcelSpreadsheet(InputStream is, int rowAccessWindowSize) {
+        SpreadsheetTempStorage tempStorage = defaultTempStorage;
         try {
             XSSFWorkbook xssfWorkbook = (XSSFWorkbook) WorkbookFactory.create(is);
-            workbook = new SXSSFWorkbook(xssfWorkbook, rowAccessWindowSize);
+            tempStorage.prepare();
+            workbook = StreamingWorkbook.of(xssfWorkbook, rowAccessWindowSize, tempStorage);
         } catch (EncryptedDocumentException | IOException ex) {
             throw new InternalServerErrorException(ex);
         }
+        styleRegistry = new SpreadsheetStyleRegistry(workbook);
+        widthEstimators = new ConcurrentHashMap<>();
+        heightEstimators = new ConcurrentHashMap<>();
+        mergedRegionCount = new LongAdder();
+    }
+
+    // 平行寫入用，與 parent 共用 workbook 及樣式，但有各自的 working sheet/row/cell
+    private ExcelSpreadsheet(ExcelSpreadsheet parent, Sheet sheet) {
+        workbook = parent.workbook;
+        styleRegistry = parent.styleRegistry;
+        widthEstimators = parent.widthEstimators;
+        heightEstimators = parent.heightEstimators;
+        mergedRegionCount = parent.mergedRegionCount;
+        metrics = parent.metrics;
+        zoneId = parent.zoneId;
+        workingSheet = sheet;
     }
 
     public static ExcelSpreadsheet createWorkbook() {
@@ -135,6 +240,21 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return xlsx;
     }
 
+    public static ExcelSpreadsheet createWorkbook(SpreadsheetTempStorage tempStorage) {
+        ExcelSpreadsheet xlsx = new ExcelSpreadsheet(SXSSFWorkbook.DEFAULT_WINDOW_SIZE, tempStorage);
+        xlsx.createSheet(DEFAULT_SHEET_NAME);
+        return xlsx;
+    }
+
+    public static SpreadsheetTempStorage getDefaultTempStorage() {
+        return defaultTempStorage;
+    }
+
+    // 之後建立的 ExcelSpreadsheet 使用此暫存檔設定，已建立的不受影響
+    public static void setDefaultTempStorage(SpreadsheetTempStorage tempStorage) {
+        defaultTempStorage = Objects.requireNonNull(tempStorage);
+    }
+
     // 會修改原檔案
     public static ExcelSpreadsheet loadWorkbook(File excelFile) {
         return loadWorkbook(excelFile, ExcelType.SXSS);
@@ -284,47 +404,144 @@ public class ExcelSpreadsheet implements Spreadsheet {
         if (CollectionUtils.isEmpty(dataList)) {
             throw new IllegalArgumentException("No data to generate!");
         }
-        Map<Integer, ExcelColumn> map = parseExcelColumn(dataList.get(0).getClass());
-        if (map.size() == 0) {
-            throw new IllegalArgumentException(dataList.get(0).getClass().getName()
-                + " have no fields annotated with @ExcelColumn!");
-        }
+        return generateSheet(dataList.iterator(), getColumnBinder(dataList.get(0).getClass()),
+            startRowIndex, startColIndex, title, showColumnHeader, titleShiftRowSize, hasCreateDate);
+    }
+
+    /**
+     * 逐筆從 Iterator 取資料寫入，不需先將全部資料載入記憶體 (搭配 SXSSF 可維持固定的 heap 用量)
+     */
+    public <T> ExcelSpreadsheet generateSheet(Iterator<? extends T> dataIterator, Class<T> type) {
+        return this.generateSheet(dataIterator, type, 0, 0, null, true, 1, false);
+    }
+
+    public <T> ExcelSpreadsheet generateSheet(
+        Iterator<? extends T> dataIterator, Class<T> type, int startRowIndex,
+        int startColIndex, String title, boolean showColumnHeader, int titleShiftRowSize,
+        boolean hasCreateDate) {
+        return generateSheet(dataIterator, getColumnBinder(type), startRowIndex, startColIndex,
+            title, showColumnHeader, titleShiftRowSize, hasCreateDate);
+    }
+
+    // Stream 由呼叫端負責關閉 (例如 JPA 的 Stream 查詢)
+    public <T> ExcelSpreadsheet generateSheet(Stream<? extends T> dataStream, Class<T> type) {
+        return this.generateSheet(dataStream.iterator(), type);
+    }
+
+    public <T> ExcelSpreadsheet generateSheet(
+        Stream<? extends T> dataStream, Class<T> type, int startRowIndex,
+        int startColIndex, String title, boolean showColumnHeader, int titleShiftRowSize,
+        boolean hasCreateDate) {
+        return this.generateSheet(dataStream.iterator(), type, startRowIndex, startColIndex, title,
+            showColumnHeader, titleShiftRowSize, hasCreateDate);
+    }
+
+    // 分頁載入，pageLoader 回傳空 List 時結束
+    public <T> ExcelSpreadsheet generateSheet(
+        IntFunction<? extends List<? extends T>> pageLoader, Class<T> type) {
+        return this.generateSheet(PagedIterator.of(pageLoader), type);
+    }
+
+    private ExcelSpreadsheet generateSheet(
+        Iterator<?> dataIterator, ExcelColumnBinder binder, int startRowIndex,
+        int startColIndex, String title, boolean showColumnHeader, int titleShiftRowSize,
+        boolean hasCreateDate) {
         int shiftRowSize = hasCreateDate ? 1 + titleShiftRowSize : titleShiftRowSize;
-        buildTitle(map, startRowIndex, startColIndex, title, hasCreateDate);
+        // 先設定欄寬，寫入時才能依欄寬計算列高
+        setColumnWidth(binder, startColIndex);
+        long start = System.nanoTime();
+        buildTitle(binder, startRowIndex, startColIndex, title, hasCreateDate);
+        start = reportPhase(SpreadsheetMetrics.Phase.TITLE, start);
         if (showColumnHeader) {
             shiftRowSize++;
-            buildHeader(map, startRowIndex + shiftRowSize, startColIndex);
+            buildHeader(binder, startRowIndex + shiftRowSize, startColIndex);
+            start = reportPhase(SpreadsheetMetrics.Phase.HEADER, start);
         }
         shiftRowSize++;
-        buildContent(dataList, map, startRowIndex + shiftRowSize);
-        setColumnWidth(map, startColIndex);
+        reportContent(buildContent(dataIterator, binder, startRowIndex + shiftRowSize), start);
         return this;
     }
 
     public <T> ExcelSpreadsheet generateRowSpanSheet(
         Map<Integer, List<T>> dataMap,
         int startRowIndex, int startColIndex, int setIdColIndex) throws IllegalAccessException {
-        int rowIndex = startRowIndex;
-        for (Map.Entry<Integer, List<T>> data : dataMap.entrySet()) {
-            List<T> dataList = data.getValue();
-            generateSheet(dataList, rowIndex, startColIndex, null, false, 0);
-            int mergeRowCount = dataList.size();
-            //            合併欄位的列(僅有一筆資料時不用合併)
-            if (mergeRowCount > 1) {
-                for (int colNum = 0; colNum < setIdColIndex; colNum++) {
-                    mergeRows(rowIndex + 1, mergeRowCount, colNum);
-                }
+        if (dataMap.isEmpty()) {
+            return this;
+        }
+        for (List<T> dataList : dataMap.values()) {
+            if (CollectionUtils.isEmpty(dataList)) {
+                throw new IllegalArgumentException("No data to generate!");
             }
-            //            設置子項目的編號
-            Field field = dataList.get(0).getClass().getDeclaredFields()[0];
-            for (int dataId = 1; dataId < mergeRowCount + 1; dataId++) {
-                setCellValue(rowIndex + dataId, setIdColIndex, dataId, getStyleByField(field));
+        }
+        Class<?> type = dataMap.values().iterator().next().get(0).getClass();
+        return generateRowSpanSheet(dataMap.values().iterator(), getColumnBinder(type),
+            startRowIndex, startColIndex, setIdColIndex);
+    }
+
+    /**
+     * 每個 List 為一組，組內的列在 setIdColIndex 之前的欄位會垂直合併，並於 setIdColIndex 填入組內編號。
+     * 資料從 startRowIndex 的下一列開始寫入，空的組會略過
+     */
+    public <T> ExcelSpreadsheet generateRowSpanSheet(
+        Iterator<? extends List<? extends T>> groupIterator, Class<T> type,
+        int startRowIndex, int startColIndex, int setIdColIndex) {
+        return generateRowSpanSheet(groupIterator, getColumnBinder(type), startRowIndex,
+            startColIndex, setIdColIndex);
+    }
+
+    /**
+     * 依 groupKeyExtractor 分組，key 相同且相鄰的資料為同一組，因此資料需先依 key 排序
+     */
+    public <T> ExcelSpreadsheet generateRowSpanSheet(
+        Iterator<? extends T> dataIterator, Function<? super T, ?> groupKeyExtractor,
+        Class<T> type, int startRowIndex, int startColIndex, int setIdColIndex) {
+        long start = System.nanoTime();
+        RowSpanWriter writer = rowSpanWriter(getColumnBinder(type), startRowIndex, startColIndex,
+            setIdColIndex);
+        boolean first = true;
+        Object groupKey = null;
+        while (dataIterator.hasNext()) {
+            T data = dataIterator.next();
+            Object key = groupKeyExtractor.apply(data);
+            if (!first && !Objects.equals(groupKey, key)) {
+                writer.endGroup();
             }
-            rowIndex += mergeRowCount;
+            groupKey = key;
+            first = false;
+            writer.write(data);
         }
+        writer.finish();
+        reportContent(writer.getRowWriter(), start);
         return this;
     }
 
+    private ExcelSpreadsheet generateRowSpanSheet(
+        Iterator<? extends List<?>> groupIterator, ExcelColumnBinder binder,
+        int startRowIndex, int startColIndex, int setIdColIndex) {
+        long start = System.nanoTime();
+        RowSpanWriter writer = rowSpanWriter(binder, startRowIndex, startColIndex, setIdColIndex);
+        while (groupIterator.hasNext()) {
+            for (Object data : groupIterator.next()) {
+                writer.write(data);
+            }
+            writer.endGroup();
+        }
+        writer.finish();
+        reportContent(writer.getRowWriter(), start);
+        return this;
+    }
+
+    private RowSpanWriter rowSpanWriter(
+        ExcelColumnBinder binder, int startRowIndex, int startColIndex,
+        int setIdColIndex) {
+        if (workingSheet == null) {
+            createSheet(DEFAULT_SHEET_NAME);
+        }
+        setColumnWidth(binder, startColIndex);
+        return new RowSpanWriter(binder, rowWriter(), mergeBatch(), startRowIndex + 1,
+            setIdColIndex);
+    }
+
     public ExcelSpreadsheet generateDailyRentSheet(
         Map<Integer, String> departmentCol,
         Map<Integer, String> assetTypeRow,
@@ -332,51 +549,138 @@ public class ExcelSpreadsheet implements Spreadsheet {
         String title,
         OffsetDateTime createDate,
         ExcelComputeDateDTO dateDTO) {
+        long start = System.nanoTime();
         buildDailyRentTitle(departmentCol.size() + 2, title, createDate, dateDTO);
-        int startRowIndex = 4;
-        int startColIndex = 0;
-        buildDailyRentHeader(departmentCol, startRowIndex, startColIndex);
-        startRowIndex++;
-        buildSideBar(assetTypeRow, startRowIndex, startColIndex);
-        startColIndex++;
-
-        Map<Integer, BigDecimal> assetTotalMap = new HashMap<>();
+        reportPhase(SpreadsheetMetrics.Phase.TITLE, start);
+        //        列為資產項目、欄為處別，沒有資料的組合為 0
+        PivotTable<Integer, Integer> pivot = new PivotTable<>(assetTypeRow, departmentCol);
+        for (Map.Entry<Integer, Map<Integer, BigDecimal>> department : dailyRent.entrySet()) {
+            int colIndex = pivot.columnIndexOf(department.getKey());
+            if (colIndex < 0 || department.getValue() == null) {
+                continue;
+            }
+            for (Map.Entry<Integer, BigDecimal> assetRent : department.getValue().entrySet()) {
+                int rowIndex = pivot.rowIndexOf(assetRent.getKey());
+                if (rowIndex >= 0 && assetRent.getValue() != null) {
+                    pivot.add(rowIndex, colIndex, pivot.toUnscaled(assetRent.getValue()));
+                }
+            }
+        }
         SpreadsheetStyle valueStyle = cellCenterStyle();
         SpreadsheetStyle amountStyle = cellCenterStyle();
         amountStyle.setBackGroundColor(new XSSFColor(new java.awt.Color(112, 173, 71), new DefaultIndexedColorMap()));
-        //        設定日租金
-        for (Map.Entry<Integer, String> department : departmentCol.entrySet()) {
-            int rowIndex = startRowIndex;
-            BigDecimal departmentTotal = new BigDecimal(0);
-            Map<Integer, BigDecimal> assetRent = dailyRent.get(department.getKey());
-            for (Map.Entry<Integer, String> assetType : assetTypeRow.entrySet()) {
-                BigDecimal rentValue = assetRent.get(assetType.getKey());
-                departmentTotal = departmentTotal.add(rentValue);
-                setCellValue(rowIndex, startColIndex, rentValue, valueStyle);
-                //               加總各資產項目的總和
-                BigDecimal assetTotal = assetTotalMap.getOrDefault(assetType.getKey(), new BigDecimal(0));
-                assetTotalMap.put(assetType.getKey(), assetTotal.add(rentValue));
-                rowIndex++;
+        return generatePivotSheet(pivot, 4, 0, PivotSheetOptions.builder()
+            .cornerLabel("資產項目")
+            .headerStyle(buildHeaderStyle())
+            .rowLabelStyle(cellCenterStyle())
+            .valueStyle(valueStyle)
+            .rowTotalStyle(valueStyle)
+            .columnTotalStyle(amountStyle)
+            .build());
+    }
+
+    /**
+     * 輸出交叉表，第一列為欄名稱、第一欄為列名稱，最右側為各列合計、最下方為各欄合計。
+     * 逐列寫入，合計以 long 累加，不需保留已寫入的列；合計超出 long 範圍時拋出 ArithmeticException
+     */
+    public ExcelSpreadsheet generatePivotSheet(
+        PivotTable<?, ?> pivot, int startRowIndex, int startColIndex,
+        PivotSheetOptions options) {
+        int rowCount = pivot.getRowCount();
+        int columnCount = pivot.getColumnCount();
+        double unit = Math.pow(10, pivot.getScale());
+        boolean hasRowTotal = options.getRowTotalLabel() != null;
+        boolean hasColumnTotal = options.getColumnTotalLabel() != null;
+        int firstValueCol = startColIndex + 1;
+        int totalColIndex = firstValueCol + columnCount;
+        int firstValueRow = startRowIndex + 1;
+        int totalRowIndex = firstValueRow + rowCount;
+        long start = System.nanoTime();
+        RowWriter rowWriter = rowWriter();
+
+        rowWriter.startRow(startRowIndex)
+            .write(startColIndex, options.getCornerLabel(), options.getHeaderStyle());
+        for (int col = 0; col < columnCount; col++) {
+            rowWriter.write(firstValueCol + col, pivot.getColumnLabel(col), options.getHeaderStyle());
+        }
+        if (hasRowTotal) {
+            rowWriter.write(totalColIndex, options.getRowTotalLabel(), options.getHeaderStyle());
+        }
+
+        long[] columnTotals = new long[columnCount];
+        for (int row = 0; row < rowCount; row++) {
+            int rowIndex = firstValueRow + row;
+            rowWriter.startRow(rowIndex)
+                .write(startColIndex, pivot.getRowLabel(row), options.getRowLabelStyle());
+            long rowTotal = 0;
+            for (int col = 0; col < columnCount; col++) {
+                long value = pivot.getUnscaledValue(row, col);
+                rowTotal = Math.addExact(rowTotal, value);
+                columnTotals[col] = Math.addExact(columnTotals[col], value);
+                rowWriter.writeNumber(firstValueCol + col, value / unit, options.getValueStyle());
+            }
+            if (hasRowTotal) {
+                writeTotal(rowWriter, totalColIndex, options.isSumFormula() && columnCount > 0,
+                    rowIndex, firstValueCol, rowIndex, totalColIndex - 1, rowTotal / unit,
+                    options.getRowTotalStyle());
             }
-            //            設置處別總計
-            setCellValue(rowIndex, 0, "總計", amountStyle);
-            setCellValue(rowIndex, startColIndex, departmentTotal, amountStyle);
-            startColIndex++;
         }
-        //        設置各資產小計
-        BigDecimal total = new BigDecimal(0);
-        int rowIndex = startRowIndex;
-        for (Map.Entry<Integer, String> assetType : assetTypeRow.entrySet()) {
-            setCellValue(rowIndex, startColIndex, assetTotalMap.get(assetType.getKey()), valueStyle);
-            total = total.add(assetTotalMap.get(assetType.getKey()));
-            rowIndex++;
+
+        if (hasColumnTotal) {
+            rowWriter.startRow(totalRowIndex)
+                .write(startColIndex, options.getColumnTotalLabel(), options.getColumnTotalStyle());
+            boolean sumFormula = options.isSumFormula() && rowCount > 0;
+            long grandTotal = 0;
+            for (int col = 0; col < columnCount; col++) {
+                grandTotal = Math.addExact(grandTotal, columnTotals[col]);
+                writeTotal(rowWriter, firstValueCol + col, sumFormula, firstValueRow,
+                    firstValueCol + col, totalRowIndex - 1, firstValueCol + col,
+                    columnTotals[col] / unit, options.getColumnTotalStyle());
+            }
+            if (hasRowTotal) {
+                writeTotal(rowWriter, totalColIndex, sumFormula, firstValueRow, totalColIndex,
+                    totalRowIndex - 1, totalColIndex, grandTotal / unit,
+                    options.getColumnTotalStyle());
+            }
+        }
+        if (options.isSumFormula()) {
+            workbook.setForceFormulaRecalculation(true);
         }
-        setCellValue(rowIndex, startColIndex, total, amountStyle);
+        reportContent(rowWriter, start);
         return this;
     }
 
+    private static void writeTotal(
+        RowWriter rowWriter, int colIndex, boolean sumFormula, int firstRow, int firstCol,
+        int lastRow, int lastCol, double total, SpreadsheetStyle style) {
+        if (sumFormula) {
+            String range = new CellRangeAddress(firstRow, lastRow, firstCol, lastCol).formatAsString();
+            rowWriter.writeFormula(colIndex, "SUM(" + range + ")", total, style);
+        } else {
+            rowWriter.writeNumber(colIndex, total, style);
+        }
+    }
+
+    // 先刪除 SXSSF 暫存檔再關閉 workbook，workbook.close 本身不會刪除暫存檔
     public void close() throws IOException {
-        workbook.close();
+        closed = true;
+        try {
+            disposeTempFiles();
+        } finally {
+            workbook.close();
+        }
+    }
+
+    private void disposeTempFiles() {
+        if (workbook instanceof SXSSFWorkbook) {
+            ((SXSSFWorkbook) workbook).dispose();
+        }
+    }
+
+    // 目前 SXSSF 暫存檔的總大小，非 SXSSF 或已刪除時為 0
+    public long getTempFileBytes() {
+        return workbook instanceof StreamingWorkbook
+            ? ((StreamingWorkbook) workbook).getTempFileBytes() : 0;
     }
 
     /**
@@ -387,6 +691,59 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return this;
     }
 
+    /**
+     * 以 executor 平行產生多個工作表，key 為工作表名稱，依 Map 的順序建立工作表。
+     * SXSSF 的每個工作表各自寫入暫存檔，樣式由共用的 SpreadsheetStyleRegistry 同步建立。
+     * XSS 的文字寫入共用的 SharedStringsTable、樣式寫入 StylesTable，皆非執行緒安全，因此只支援 SXSSF。
+     */
+    public ExcelSpreadsheet generateSheetsInParallel(
+        Map<String, SheetWriter> sheetWriters,
+        ExecutorService executor) {
+        if (!(workbook instanceof SXSSFWorkbook)) {
+            throw new IllegalStateException("只有 SXSSF 的 workbook 可平行產生工作表，XSS 請依序產生");
+        }
+        List<Future<?>> futures = new ArrayList<>();
+        for (Map.Entry<String, SheetWriter> entry : sheetWriters.entrySet()) {
+            Sheet sheet = workbook.getSheet(entry.getKey());
+            if (sheet == null) {
+                sheet = workbook.createSheet(entry.getKey());
+            }
+            ExcelSpreadsheet sheetView = new ExcelSpreadsheet(this, sheet);
+            SheetWriter writer = entry.getValue();
+            futures.add(executor.submit(() -> {
+                writer.write(sheetView);
+                sheetView.reportPendingCounts();
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException ex) {
+            futures.forEach(future -> future.cancel(true));
+            throw new InternalServerErrorException(ex.getCause());
+        } catch (InterruptedException ex) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(ex);
+        }
+        return this;
+    }
+
+    // 使用固定大小的執行緒池，完成後關閉
+    public ExcelSpreadsheet generateSheetsInParallel(
+        Map<String, SheetWriter> sheetWriters,
+        int parallelism) {
+        ExecutorService executor = Executors.newFixedThreadPool(
+            Math.max(1, Math.min(parallelism, sheetWriters.size())));
+        try {
+            return generateSheetsInParallel(sheetWriters, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public ExcelSpreadsheet getSheetAt(int index) {
         workingSheet = workbook.getSheetAt(index);
         if (workingSheet == null) {
@@ -405,6 +762,8 @@ public class ExcelSpreadsheet implements Spreadsheet {
 
     public void removeSheet(int sheetNum) {
         if (this.isSheetExist(sheetNum)) {
+            widthEstimators.remove(workbook.getSheetAt(sheetNum));
+            heightEstimators.remove(workbook.getSheetAt(sheetNum));
             workbook.removeSheetAt(sheetNum);
         }
     }
@@ -417,6 +776,7 @@ public class ExcelSpreadsheet implements Spreadsheet {
         int columnNum = 0;
         for (Integer column : columnWidth) {
             workingSheet.setColumnWidth(columnNum, column * 4 * 256);
+            invalidateColumnWidths(workingSheet);
             columnNum++;
         }
         return this;
@@ -486,26 +846,158 @@ public class ExcelSpreadsheet implements Spreadsheet {
             createCell(columnIndex);
         }
 
-        this.setCellValueByType(value);
+        writeTypedValue(workingCell, value, zoneId);
+        recordCellWidth(value, style);
+        recordRowHeight(value, style);
+        pendingCells++;
 
-        buildAndSetCellStyle(style);
+        buildAndSetCellStyle(style, defaultDataFormat(value));
         return this;
     }
 
+    // 數值、布林與日期以原型別寫入 (不經過字串)，Excel 可直接加總或排序
     public ExcelSpreadsheet setCellValueByType(Object value) {
+        writeTypedValue(workingCell, value, zoneId);
+        recordCellWidth(value, null);
+        recordRowHeight(value, null);
+        pendingCells++;
+        return this;
+    }
+
+    private void recordCellWidth(Object value, SpreadsheetStyle style) {
+        ColumnWidthEstimator estimator = widthEstimators.get(workingSheet);
+        if (estimator != null) {
+            estimator.record(workingCell.getRowIndex(), workingCell.getColumnIndex(), value,
+                style == null ? null : style.getDataFormat(), fontSizeOf(style));
+        }
+    }
+
+    private void recordRowHeight(Object value, SpreadsheetStyle style) {
+        RowHeightEstimator estimator = heightEstimators.get(workingSheet);
+        if (estimator != null) {
+            estimator.record(workingRow, workingCell.getColumnIndex(), value, fontSizeOf(style));
+        }
+    }
+
+    private void invalidateColumnWidths(Sheet sheet) {
+        RowHeightEstimator estimator = heightEstimators.get(sheet);
+        if (estimator != null) {
+            estimator.invalidateColumnWidths();
+        }
+    }
+
+    static int fontSizeOf(SpreadsheetStyle style) {
+        return style == null || style.getFontStyle() == null ? 0 : style.getFontStyle().getFontSize();
+    }
+
+    /**
+     * 依值的型別寫入儲存格。Excel 的數值只保留 15 位有效數字，超過的整數與 BigDecimal 以文字寫入，避免被捨入；
+     * OffsetDateTime 與 ZonedDateTime 保留本身的時差，沒有時差的 Instant 以 zoneId 轉換
+     */
+    static void writeTypedValue(Cell cell, Object value, ZoneId zoneId) {
         if (value == null) {
-            workingCell.setCellValue("");
-        } else if (value instanceof Integer) {
-            workingCell.setCellValue((int) value);
+            cell.setCellValue("");
+        } else if (value instanceof String) {
+            cell.setCellValue((String) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            cell.setCellValue(((Number) value).intValue());
         } else if (value instanceof Long) {
-            workingCell.setCellValue((long) value);
+            long longValue = ((Number) value).longValue();
+            if (Math.abs(longValue) <= MAX_EXACT_NUMBER) {
+                cell.setCellValue(longValue);
+            } else {
+                cell.setCellValue(Long.toString(longValue));
+            }
+        } else if (value instanceof BigInteger) {
+            BigInteger bigInteger = (BigInteger) value;
+            if (bigInteger.abs().compareTo(BigInteger.valueOf(MAX_EXACT_NUMBER)) <= 0) {
+                cell.setCellValue(bigInteger.longValue());
+            } else {
+                cell.setCellValue(bigInteger.toString());
+            }
+        } else if (value instanceof BigDecimal) {
+            BigDecimal bigDecimal = (BigDecimal) value;
+            if (bigDecimal.signum() == 0 || bigDecimal.stripTrailingZeros().precision() <= MAX_SIGNIFICANT_DIGITS) {
+                cell.setCellValue(bigDecimal.doubleValue());
+            } else {
+                cell.setCellValue(bigDecimal.toPlainString());
+            }
+        } else if (value instanceof Number) {
+            cell.setCellValue(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            cell.setCellValue((boolean) value);
+        } else if (value instanceof Date) {
+            cell.setCellValue((Date) value);
+        } else if (value instanceof Calendar) {
+            cell.setCellValue((Calendar) value);
+        } else if (value instanceof LocalDate) {
+            cell.setCellValue((LocalDate) value);
+        } else if (value instanceof LocalDateTime) {
+            cell.setCellValue((LocalDateTime) value);
+        } else if (value instanceof OffsetDateTime) {
+            cell.setCellValue(((OffsetDateTime) value).toLocalDateTime());
+        } else if (value instanceof ZonedDateTime) {
+            cell.setCellValue(((ZonedDateTime) value).toLocalDateTime());
+        } else if (value instanceof Instant) {
+            cell.setCellValue(LocalDateTime.ofInstant((Instant) value, zoneId));
         } else {
-            workingCell.setCellValue(value.toString());
+            cell.setCellValue(value.toString());
         }
+    }
+
+    // 日期類型的值若樣式未指定格式，需給預設格式，否則會顯示成序號
+    static String defaultDataFormat(Object value) {
+        if (value instanceof LocalDate) {
+            return DEFAULT_DATE_FORMAT;
+        }
+        if (value instanceof Date || value instanceof Calendar || value instanceof LocalDateTime
+            || value instanceof OffsetDateTime || value instanceof ZonedDateTime
+            || value instanceof Instant) {
+            return DEFAULT_DATE_TIME_FORMAT;
+        }
+        return null;
+    }
+
+    /**
+     * 整列寫入，每列只建立一次 Row，且不變更 working row/cell
+     *
+     * @param styles 與 values 對應的樣式，可為 null 或長度較短
+     */
+    public ExcelSpreadsheet writeRow(int rowIndex, Object[] values, CellStyle[] styles) {
+        return writeRow(rowIndex, 0, values, styles);
+    }
 
+    public ExcelSpreadsheet writeRow(
+        int rowIndex, int startColIndex, Object[] values,
+        CellStyle[] styles) {
+        RowWriter rowWriter = rowWriter().startRow(rowIndex);
+        for (int i = 0; i < values.length; i++) {
+            CellStyle style = styles != null && i < styles.length ? styles[i] : null;
+            rowWriter.write(startColIndex + i, values[i], style);
+        }
+        pendingRows++;
+        pendingCells += values.length;
         return this;
     }
 
+    // 預先轉換好的樣式可搭配 writeRow 重複使用；內容相同的樣式共用同一個 CellStyle，不可修改
+    public CellStyle[] buildCellStyles(SpreadsheetStyle... styles) {
+        CellStyle[] cellStyles = new CellStyle[styles.length];
+        for (int i = 0; i < styles.length; i++) {
+            cellStyles[i] = styles[i] == null ? null : styleRegistry.getCellStyle(styles[i]);
+        }
+        return cellStyles;
+    }
+
+    // 綁定目前 working sheet 的寫入游標，適合逐列填入連續的儲存格
+    public RowWriter rowWriter() {
+        if (workingSheet == null) {
+            createSheet(DEFAULT_SHEET_NAME);
+        }
+        return new RowWriter(workingSheet, styleRegistry, widthEstimators.get(workingSheet),
+            heightEstimators.get(workingSheet), zoneId);
+    }
+
     public List<List<String>> readFields() {
         return readFields(DEFAULT_SHEET_NAME);
     }
@@ -539,6 +1031,48 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return data;
     }
 
+    /**
+     * 以 SAX 串流讀取，不建立 XSSFWorkbook，回傳格式與 readFields(sheetName, maxReadCellNum) 相同
+     */
+    public static List<List<String>> readFields(
+        InputStream input, String sheetName,
+        Integer maxReadCellNum) {
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(input)) {
+            return readFields(reader, sheetName, maxReadCellNum);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public static List<List<String>> readFields(File file, String sheetName, Integer maxReadCellNum) {
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            return readFields(reader, sheetName, maxReadCellNum);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    private static List<List<String>> readFields(
+        ExcelStreamingReader reader, String sheetName,
+        Integer maxReadCellNum) {
+        List<List<String>> data = new ArrayList<>();
+        reader.readSheet(sheetName, row -> {
+            // 補上中間沒有資料的列
+            while (data.size() < row.getRowNum()) {
+                data.add(new ArrayList<>());
+            }
+            List<String> cellData = new ArrayList<>();
+            int cellNum = row.getLastCellNum() - 1;
+            cellNum = maxReadCellNum == null || cellNum < maxReadCellNum ? cellNum
+                : maxReadCellNum;
+            for (int j = 0; j <= cellNum; j++) {
+                cellData.add(row.getCellValue(j));
+            }
+            data.add(cellData);
+        });
+        return data;
+    }
+
     public String getCellValue() {
         switch (workingCell.getCellType()) {
             case STRING:
@@ -627,6 +1161,18 @@ public class ExcelSpreadsheet implements Spreadsheet {
         buildAndSetCellStyle(style, range);
         if (mergedRowCount != 1 || mergedColumnCount != 1) {
             workingSheet.addMergedRegion(range);
+            mergedRegionCount.increment();
+            metrics.mergedRegionsAdded(1);
+        }
+        if (colEndIndex > colStartIndex) {
+            ColumnWidthEstimator widthEstimator = widthEstimators.get(workingSheet);
+            if (widthEstimator != null) {
+                widthEstimator.exclude(rowStartIndex, colStartIndex);
+            }
+            RowHeightEstimator heightEstimator = heightEstimators.get(workingSheet);
+            if (heightEstimator != null) {
+                heightEstimator.exclude(rowStartIndex, colStartIndex);
+            }
         }
 
         if (isWorkingCellAutoRowHeight) {
@@ -641,6 +1187,25 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return this;
     }
 
+    /**
+     * 大量合併儲存格時使用，以索引檢查重疊後於 commit 時一次加入 working sheet。
+     * 不會設定框線樣式
+     */
+    public MergedRegionBatch mergeBatch() {
+        if (workingSheet == null) {
+            createSheet(DEFAULT_SHEET_NAME);
+        }
+        return new MergedRegionBatch(workingSheet, count -> {
+            mergedRegionCount.add(count);
+            metrics.mergedRegionsAdded(count);
+        });
+    }
+
+    // 透過 mergeCells 與 mergeBatch 加入的合併儲存格數量
+    public long getMergedRegionCount() {
+        return mergedRegionCount.sum();
+    }
+
     public ExcelSpreadsheet mergeRows(int rowStartIndex, int mergedRowCount, int colStartIndex) {
         return mergeCells(rowStartIndex, mergedRowCount, colStartIndex, 0);
     }
@@ -674,63 +1239,68 @@ public class ExcelSpreadsheet implements Spreadsheet {
         row.setHeight(height);
     }
 
-    private void buildAndSetCellStyle(SpreadsheetStyle style) {
+    private void buildAndSetCellStyle(SpreadsheetStyle style, String defaultDataFormat) {
         if (style != null) {
-            CellStyle cellStyle = putStyleToMap(style);
-            workingCell.setCellStyle(cellStyle);
+            workingCell.setCellStyle(styleRegistry.getCellStyle(style, defaultDataFormat));
+        } else if (defaultDataFormat != null) {
+            workingCell.setCellStyle(styleRegistry.getDataFormatStyle(defaultDataFormat));
         }
     }
 
+    // 只改變合併範圍外框儲存格的框線，與 RegionUtil 相同保留各儲存格原本的字型、對齊與格式
     private void buildAndSetCellStyle(SpreadsheetStyle style, CellRangeAddress region) {
-        if (style != null) {
-            CellStyle cellStyle = putStyleToMap(style);
-            RegionUtil.setBorderBottom(cellStyle.getBorderBottom(), region, workingSheet);
-            RegionUtil.setBorderTop(cellStyle.getBorderTop(), region, workingSheet);
-            RegionUtil.setBorderLeft(cellStyle.getBorderLeft(), region, workingSheet);
-            RegionUtil.setBorderRight(cellStyle.getBorderRight(), region, workingSheet);
+        if (style == null) {
+            return;
+        }
+        int firstRow = region.getFirstRow();
+        int lastRow = region.getLastRow();
+        int firstCol = region.getFirstColumn();
+        int lastCol = region.getLastColumn();
+        for (int rowIndex = firstRow; rowIndex <= lastRow; rowIndex++) {
+            Row row = workingSheet.getRow(rowIndex);
+            if (row == null) {
+                row = workingSheet.createRow(rowIndex);
+            }
+            int rowEdges = (rowIndex == firstRow ? SpreadsheetStyleRegistry.EDGE_TOP : 0)
+                | (rowIndex == lastRow ? SpreadsheetStyleRegistry.EDGE_BOTTOM : 0);
+            // 中間的列只有頭尾兩格在外框上
+            int colStep = rowEdges == 0 ? Math.max(1, lastCol - firstCol) : 1;
+            for (int colIndex = firstCol; colIndex <= lastCol; colIndex += colStep) {
+                int edges = rowEdges
+                    | (colIndex == firstCol ? SpreadsheetStyleRegistry.EDGE_LEFT : 0)
+                    | (colIndex == lastCol ? SpreadsheetStyleRegistry.EDGE_RIGHT : 0);
+                Cell cell = row.getCell(colIndex);
+                if (cell == null) {
+                    cell = row.createCell(colIndex);
+                }
+                cell.setCellStyle(styleRegistry.getBorderedStyle(cell.getCellStyle(), style, edges));
+            }
         }
     }
 
-    private CellStyle putStyleToMap(SpreadsheetStyle style) {
-        return styleMap.computeIfAbsent(style, this::buildCellStyle);
-    }
-
+    // 回傳新的 CellStyle，修改後不影響其他儲存格；不需修改時可使用 buildCellStyles 共用的樣式
     public CellStyle buildCellStyle(SpreadsheetStyle style) {
-        XSSFCellStyle cellStyle = (XSSFCellStyle) workbook.createCellStyle();
+        CellStyle cellStyle = workbook.createCellStyle();
+        cellStyle.cloneStyleFrom(styleRegistry.getCellStyle(style));
+        return cellStyle;
+    }
 
-        SpreadsheetFontStyle fontStyle = style.getFontStyle();
-        if (fontStyle != null) {
-            Font font = workbook.createFont();
-            font.setFontName(fontStyle.getFontName());
-            font.setFontHeightInPoints((short) fontStyle.getFontSize());
-            font.setBold(style.getFontStyle().isBold());
-            font.setColor(fontStyle.getColor().getIndex());
-            cellStyle.setFont(font);
-        }
-        cellStyle.setVerticalAlignment(verticalAlignmentTypeConverter(style.getVAlign()));
-        cellStyle.setAlignment(horizontalAlignmentTypeConverter(style.getHAlign()));
-        cellStyle.setWrapText(style.isWrapText());
-        if (style.getBackGroundColor() != null) {
-            cellStyle.setFillForegroundColor(style.getBackGroundColor());
-            cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        }
-        if (style.getBorderPosition().isBottom()) {
-            cellStyle.setBorderBottom(borderConverter(style.getBorderStyle()));
-        }
-        if (style.getBorderPosition().isLeft()) {
-            cellStyle.setBorderLeft(borderConverter(style.getBorderStyle()));
-        }
-        if (style.getBorderPosition().isRight()) {
-            cellStyle.setBorderRight(borderConverter(style.getBorderStyle()));
-        }
-        if (style.getBorderPosition().isTop()) {
-            cellStyle.setBorderTop(borderConverter(style.getBorderStyle()));
+    /**
+     * 之後寫入 working sheet 的文字會依欄寬與字型大小即時調高所在列的列高，
+     * 與 autoSetRowHeight 的計算方式相同，但不需寫完後再走訪整張表，已 flush 的列也適用。
+     * 欄寬需在寫入前設定。
+     */
+    public ExcelSpreadsheet trackRowHeight() {
+        if (workingSheet == null) {
+            createSheet(DEFAULT_SHEET_NAME);
         }
-        return cellStyle;
+        heightEstimators.computeIfAbsent(workingSheet, sheet -> new RowHeightEstimator(sheet, styleRegistry));
+        return this;
     }
 
     // getDefaultRowHeightInPoints 為15的情況適用
     public void autoSetRowHeight() {
+        long start = System.nanoTime();
         int rowLastNum = workingSheet.getLastRowNum() + 1;
         for (int rowIndex = 0; rowIndex < rowLastNum; rowIndex++) {
             Row row = workingSheet.getRow(rowIndex);
@@ -764,6 +1334,7 @@ public class ExcelSpreadsheet implements Spreadsheet {
             float defaultRowHeight = workingSheet.getDefaultRowHeightInPoints();
             row.setHeightInPoints(neededRowsMax * defaultRowHeight);
         }
+        reportPhase(SpreadsheetMetrics.Phase.AUTOSIZE, start);
     }
 
     public void setRowHeight(int rowIndex, int totalWidth, int textSize, int fontSize) {
@@ -781,7 +1352,34 @@ public class ExcelSpreadsheet implements Spreadsheet {
         }
     }
 
+    /**
+     * 之後寫入 working sheet 的值會累計各欄的顯示寬度，匯出時自動設定欄寬。
+     * 不經過 AWT 字型量測，適合大量資料或 headless 環境，會覆蓋先前設定的欄寬。
+     */
+    public ExcelSpreadsheet trackCellWidth() {
+        if (workingSheet == null) {
+            createSheet(DEFAULT_SHEET_NAME);
+        }
+        widthEstimators.computeIfAbsent(workingSheet, ColumnWidthEstimator::new);
+        return this;
+    }
+
+    // 套用 trackCellWidth 累計的欄寬，匯出時會自動呼叫
+    public ExcelSpreadsheet applyTrackedCellWidth() {
+        if (widthEstimators.isEmpty()) {
+            return this;
+        }
+        long start = System.nanoTime();
+        for (Map.Entry<Sheet, ColumnWidthEstimator> entry : widthEstimators.entrySet()) {
+            entry.getValue().apply();
+            invalidateColumnWidths(entry.getKey());
+        }
+        reportPhase(SpreadsheetMetrics.Phase.AUTOSIZE, start);
+        return this;
+    }
+
     public ExcelSpreadsheet autoCellWidth() {
+        long start = System.nanoTime();
         if (workingSheet instanceof SXSSFSheet) {
             ((SXSSFSheet) workingSheet).trackAllColumnsForAutoSizing();
         }
@@ -790,12 +1388,14 @@ public class ExcelSpreadsheet implements Spreadsheet {
         for (int i = 0; i < cellCnt; i++) {
             workingSheet.autoSizeColumn(i);
         }
+        reportPhase(SpreadsheetMetrics.Phase.AUTOSIZE, start);
         return this;
     }
 
     public void autoAllCellWidth(int rowIndex) {
         Row row = workingSheet.getRow(rowIndex);
         if (row != null) {
+            long start = System.nanoTime();
             int cellCnt = row.getLastCellNum();
             if (workingSheet instanceof SXSSFSheet) {
                 ((SXSSFSheet) workingSheet).trackAllColumnsForAutoSizing();
@@ -803,23 +1403,62 @@ public class ExcelSpreadsheet implements Spreadsheet {
             for (int j = 0; j < cellCnt; j++) {
                 workingSheet.autoSizeColumn(j);
             }
+            reportPhase(SpreadsheetMetrics.Phase.AUTOSIZE, start);
         }
     }
 
     public Resource toResource() throws IOException {
         try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();) {
-            workbook.write(byteArrayOutputStream);
+            writeWorkbook(byteArrayOutputStream);
             return new ByteArrayResource(byteArrayOutputStream.toByteArray());
         }
     }
 
     public byte[] getBytes() throws IOException {
         try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-            workbook.write(bos);
+            writeWorkbook(bos);
             return bos.toByteArray();
         }
     }
 
+    /**
+     * 直接寫入輸出串流 (例如 HttpServletResponse)，不會關閉 outputStream
+     *
+     * @return 寫出的 byte 數
+     */
+    public long writeTo(OutputStream outputStream) throws IOException {
+        try (BufferedOutputStream bufferedOut = new BufferedOutputStream(
+            CloseShieldOutputStream.wrap(outputStream), EXPORT_BUFFER_SIZE)) {
+            return writeWorkbook(bufferedOut);
+        }
+    }
+
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        return writeTo(Channels.newOutputStream(channel));
+    }
+
+    // 先寫入暫存檔，回傳的 Resource 只能讀取一次，讀取完畢或 close 後會刪除暫存檔
+    public SpooledFileResource toFileResource() throws IOException {
+        return toFileResource(null);
+    }
+
+    public SpooledFileResource toFileResource(Path tempDir) throws IOException {
+        // 以 SXSSF 暫存檔大小預估匯出檔所需的空間
+        FileSystemUtils.hasEnoughSpaceToSave(
+            tempDir == null ? Paths.get(System.getProperty("java.io.tmpdir")) : tempDir,
+            getTempFileBytes());
+        Path tempFile = tempDir == null
+            ? Files.createTempFile("excel-export-", getExtension())
+            : Files.createTempFile(tempDir, "excel-export-", getExtension());
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            long writtenBytes = writeTo(channel);
+            return new SpooledFileResource(tempFile, writtenBytes);
+        } catch (IOException | RuntimeException ex) {
+            FileSystemUtils.safeDeleteFile(tempFile);
+            throw ex;
+        }
+    }
+
     public ExcelSpreadsheet exportFile(String path, String fileName) throws IOException {
         final String fileNameWithExtension = appendExtensionIfNot(fileName);
         File file = new File(path, fileNameWithExtension);
@@ -854,42 +1493,84 @@ public class ExcelSpreadsheet implements Spreadsheet {
 
     public ExcelSpreadsheet exportFile(OutputStream outputStream) throws IOException {
         try {
-            workbook.write(outputStream);
+            writeWorkbook(outputStream);
         } catch (IOException ex) {
             LOGGER.error(ex.getMessage(), ex);
         } finally {
             outputStream.close();
-            workbook.close();
+            close();
         }
         return this;
     }
 
+    /**
+     * 套用追蹤的欄寬後寫出 workbook，並回報寫出階段的量測值，回傳寫出的 byte 數。
+     * SXSSF 暫存檔保留到 close 才刪除，因此 close 前可重複寫出；close 後寫出會拋出 IllegalStateException
+     */
+    private long writeWorkbook(OutputStream outputStream) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Spreadsheet 已關閉，暫存檔已刪除，無法再寫出");
+        }
+        reportPendingCounts();
+        applyTrackedCellWidth();
+        CountingOutputStream countingOut = new CountingOutputStream(outputStream);
+        long start = System.nanoTime();
+        workbook.write(countingOut);
+        reportPhase(SpreadsheetMetrics.Phase.WRITE, start);
+        metrics.exportBytes(countingOut.getByteCount());
+        if (workbook instanceof StreamingWorkbook) {
+            StreamingWorkbook streamingWorkbook = (StreamingWorkbook) workbook;
+            metrics.rowsFlushed(streamingWorkbook.getFlushedRowCount());
+            metrics.tempFileBytes(streamingWorkbook.getTempFileBytes());
+        }
+        return countingOut.getByteCount();
+    }
+
+    // 回報從 startNanos 到目前的耗時，回傳目前時間供下一個階段使用
+    private long reportPhase(SpreadsheetMetrics.Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        metrics.phaseCompleted(phase, now - startNanos);
+        return now;
+    }
+
+    private void reportPendingCounts() {
+        if (pendingRows > 0) {
+            metrics.rowsWritten(pendingRows);
+            pendingRows = 0;
+        }
+        if (pendingCells > 0) {
+            metrics.cellsWritten(pendingCells);
+            pendingCells = 0;
+        }
+    }
+
+    private void reportContent(RowWriter rowWriter, long startNanos) {
+        metrics.rowsWritten(rowWriter.getRowCount());
+        metrics.cellsWritten(rowWriter.getCellCount());
+        reportPhase(SpreadsheetMetrics.Phase.CONTENT, startNanos);
+    }
+
     @Override
     public String getExtension() {
         return SheetType.EXCEL.getExtension();
     }
 
-    private <T> Map<Integer, ExcelColumn> parseExcelColumn(Class<T> clazz) {
-        Map<Integer, ExcelColumn> map = new HashMap<>();
-
-        Field[] fields = clazz.getDeclaredFields();
-        int idx = 0;
-        for (Field field : fields) {
-            ExcelColumn annotation = field.getAnnotation(ExcelColumn.class);
-            if (annotation != null) {
-                map.put(idx++, annotation);
-            }
+    private ExcelColumnBinder getColumnBinder(Class<?> clazz) {
+        ExcelColumnBinder binder = ExcelColumnBinder.of(clazz);
+        if (binder.isEmpty()) {
+            throw new IllegalArgumentException(clazz.getName()
+                + " have no fields annotated with @ExcelColumn!");
         }
-        return map;
+        return binder;
     }
 
     private ExcelSpreadsheet buildTitle(
-        Map<Integer, ExcelColumn> map, int startRowIndex,
+        ExcelColumnBinder binder, int startRowIndex,
         int startColIndex, String title, boolean hasCreateDate) {
         if (TPStringUtils.isNullOrEmpty(title)) {
             return this;
         }
-        int mergedColumnCount = map.entrySet().size();
+        int mergedColumnCount = binder.size();
         SpreadsheetFontStyle titleStyle = new SpreadsheetFontStyle("標楷體", 20, false, false, IndexedColors.BLACK);
         SpreadsheetStyle style = SpreadsheetStyle.builder().build();
         style.setFontStyle(titleStyle);
@@ -949,8 +1630,13 @@ public class ExcelSpreadsheet implements Spreadsheet {
         for (int index = 0; index < mergedColumnCount; index++) {
             this.workingSheet.setColumnWidth(index, 10 * 256);
         }
+        invalidateColumnWidths(workingSheet);
     }
 
+    /**
+     * @deprecated 交叉表的標題列由 generatePivotSheet 產生 (cornerLabel 為 "資產項目")
+     */
+    @Deprecated
     public ExcelSpreadsheet buildDailyRentHeader(
         Map<Integer, String> map, int startRowIndex,
         int startColIndex) {
@@ -966,6 +1652,10 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return this;
     }
 
+    /**
+     * @deprecated 交叉表的列名稱由 generatePivotSheet 產生
+     */
+    @Deprecated
     public ExcelSpreadsheet buildSideBar(
         Map<Integer, String> map, int startRowIndex,
         int colIndex) {
@@ -979,56 +1669,54 @@ public class ExcelSpreadsheet implements Spreadsheet {
     }
 
     private ExcelSpreadsheet buildHeader(
-        Map<Integer, ExcelColumn> map, int startRowIndex,
+        ExcelColumnBinder binder, int startRowIndex,
         int startColIndex) {
         int columnIndex = startColIndex;
-        Map<Integer, SpreadsheetStyle> headerStyleMap = buildStyleMapByExcelColumn(map);
 
-        for (Map.Entry<Integer, ExcelColumn> entry : map.entrySet()) {
-            ExcelColumn annotation = entry.getValue();
+        for (ExcelColumnBinder.Column column : binder.getColumns()) {
+            ExcelColumn annotation = column.getAnnotation();
+            SpreadsheetStyle headerStyle = column.getStyle();
             String colName = annotation.colName();
             if (!TPStringUtils.isNullOrEmpty(annotation.mergeGroup())) {
                 mergeCells(startRowIndex - annotation.rowSize(), 1, columnIndex,
-                    annotation.mergeGroupSize(), headerStyleMap.get(entry.getKey()));
+                    annotation.mergeGroupSize(), headerStyle);
                 setCellValue(startRowIndex - annotation.rowSize(), columnIndex,
-                    annotation.mergeGroup(), headerStyleMap.get(entry.getKey()));
+                    annotation.mergeGroup(), headerStyle);
                 setRowHeight(startRowIndex - annotation.rowSize(),
                     annotation.columnWidth() * annotation.mergeGroupSize(),
                     annotation.mergeGroup().length(),
-                    headerStyleMap.get(entry.getKey()).getFontStyle().getFontSize());
+                    headerStyle.getFontStyle().getFontSize());
             }
 
             if (annotation.rowSize() > 1) {
                 // 包含此格往上找size格
                 mergeCells(startRowIndex - (annotation.rowSize() - 1), annotation.rowSize(),
-                    columnIndex, 1, headerStyleMap.get(entry.getKey()));
+                    columnIndex, 1, headerStyle);
                 setCellValue(startRowIndex - (annotation.rowSize() - 1), columnIndex++, colName,
-                    headerStyleMap.get(entry.getKey()));
+                    headerStyle);
             } else {
-                setCellValue(startRowIndex, columnIndex++, colName,
-                    headerStyleMap.get(entry.getKey()));
+                setCellValue(startRowIndex, columnIndex++, colName, headerStyle);
             }
         }
         return this;
     }
 
-    private <T> ExcelSpreadsheet buildContent(
-        List<T> dataList, Map<Integer, ExcelColumn> map,
-        int startRowIndex) throws IllegalAccessException {
+    private RowWriter buildContent(
+        Iterator<?> dataIterator, ExcelColumnBinder binder,
+        int startRowIndex) {
         int rowIndex = startRowIndex;
-        Map<Integer, SpreadsheetStyle> contentStyleMap = buildStyleMapByExcelColumn(map);
-
-        for (T data : dataList) {
-            Field[] fields = data.getClass().getDeclaredFields();
-            for (Map.Entry<Integer, ExcelColumn> entry : map.entrySet()) {
-                int idx = entry.getKey();
-                int colIndex = entry.getValue().colIndex();
-                Object value = FieldUtils.readField(fields[idx], data, true);
-                setCellValue(rowIndex, colIndex, value, contentStyleMap.get(entry.getKey()));
+        List<ExcelColumnBinder.Column> columns = binder.getColumns();
+        RowWriter rowWriter = rowWriter();
+
+        while (dataIterator.hasNext()) {
+            Object data = dataIterator.next();
+            rowWriter.startRow(rowIndex);
+            for (ExcelColumnBinder.Column column : columns) {
+                rowWriter.write(column.getColIndex(), column.read(data), column.getStyle());
             }
             rowIndex++;
         }
-        return this;
+        return rowWriter;
     }
 
     public <T> ExcelSpreadsheet buildColumnValue(
@@ -1050,89 +1738,39 @@ public class ExcelSpreadsheet implements Spreadsheet {
         return this;
     }
 
-    private Map<Integer, SpreadsheetStyle> buildStyleMapByExcelColumn(
-        Map<Integer, ExcelColumn> map) {
-        Map<Integer, SpreadsheetStyle> contentStyleMap = new HashMap<>();
-        for (Map.Entry<Integer, ExcelColumn> entry : map.entrySet()) {
-            contentStyleMap.put(entry.getKey(), getColumnStyle(entry.getValue()));
+    private ExcelSpreadsheet setColumnWidth(ExcelColumnBinder binder, int colIndex) {
+        for (ExcelColumnBinder.Column column : binder.getColumns()) {
+            this.workingSheet.setColumnWidth(column.getOrdinal() + colIndex,
+                column.getColumnWidth() * 256);
         }
-        return contentStyleMap;
-    }
+        invalidateColumnWidths(workingSheet);
 
-    private SpreadsheetStyle getStyleByField(Field field) {
-        return getColumnStyle(field.getAnnotation(ExcelColumn.class));
-    }
-
-    private SpreadsheetStyle getColumnStyle(ExcelColumn excelColumn) {
-        SpreadsheetStyle style = SpreadsheetStyle.builder().hAlign(excelColumn.hAlign())
-            .vAlign(excelColumn.vAlign()).wrapText(excelColumn.isWrap())
-            .fontStyle(SpreadsheetFontStyle.builder()
-                .fontName(excelColumn.fontName())
-                .fontSize(excelColumn.fontSize()).build())
-            .build();
-        return style;
+        return this;
     }
 
-    private VerticalAlignment verticalAlignmentTypeConverter(
-        TpVerticalAlignment verticalAlignment) {
-        switch (verticalAlignment) {
-            case TOP:
-                return VerticalAlignment.TOP;
-            case CENTER:
-                return VerticalAlignment.CENTER;
-            case BOTTOM:
-            default:
-                return VerticalAlignment.BOTTOM;
-        }
-    }
-
-    private HorizontalAlignment horizontalAlignmentTypeConverter(
-        TpHorizontalAlignment horizontalAlignment) {
-        switch (horizontalAlignment) {
-            case LEFT:
-                return HorizontalAlignment.LEFT;
-            case RIGHT:
-                return HorizontalAlignment.RIGHT;
-            case CENTER:
-                return HorizontalAlignment.CENTER;
-            case JUSTIFY:
-                return HorizontalAlignment.JUSTIFY;
-            case FILL:
-                return HorizontalAlignment.FILL;
-            case GENERAL:
-            default:
-                return HorizontalAlignment.GENERAL;
-        }
+    public Workbook getWorkbook() {
+        return this.workbook;
     }
 
-    private BorderStyle borderConverter(TpBorderStyle tpBorderStyle) {
-        switch (tpBorderStyle) {
-            case THIN:
-                return BorderStyle.THIN;
-            case MEDIUM:
-                return BorderStyle.MEDIUM;
-            case THICK:
-                return BorderStyle.THICK;
-            case DOUBLE:
-                return BorderStyle.DOUBLE;
-            case NONE:
-            default:
-                return BorderStyle.NONE;
-        }
+    public SpreadsheetStyleRegistry getStyleRegistry() {
+        return this.styleRegistry;
     }
 
-    private ExcelSpreadsheet setColumnWidth(Map<Integer, ExcelColumn> map, int colIndex) {
-        for (Map.Entry<Integer, ExcelColumn> entry : map.entrySet()) {
-            ExcelColumn annotation = entry.getValue();
-            int colWidth = annotation.columnWidth();
-            this.workingSheet.setColumnWidth(entry.getKey() + colIndex, colWidth * 256);
-        }
-
+    /**
+     * 設定量測回呼，null 表示不量測。樣式表與平行產生的工作表共用同一個回呼，需在寫入前設定
+     */
+    public ExcelSpreadsheet setMetrics(SpreadsheetMetrics metrics) {
+        this.metrics = metrics == null ? SpreadsheetMetrics.NOOP : metrics;
+        styleRegistry.setMetrics(this.metrics);
         return this;
     }
 
-    public Workbook getWorkbook() {
-        return this.workbook;
+    /**
+     * 設定寫入 Instant 時使用的時區，預設為系統時區。OffsetDateTime 與 ZonedDateTime 以本身的時差寫入，不受影響
+     */
+    public ExcelSpreadsheet setZoneId(ZoneId zoneId) {
+        this.zoneId = Objects.requireNonNull(zoneId, "zoneId");
+        return this;
     }
 
     public Sheet getWorkingSheet() {
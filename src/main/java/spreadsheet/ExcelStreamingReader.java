@@ -0,0 +1,399 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+import com.tp.asset_ap.util.FileSystemUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * 以 SAX 逐列讀取 xlsx，不建立整份 XSSFWorkbook，記憶體用量只與單列大小有關。
+ * InputStream 會先寫入暫存檔再開啟，close 時刪除。
+ * 日期依 workbook 的日期系統 (1900 或 1904) 轉換，見 isDate1904。
+ */
+public class ExcelStreamingReader implements Closeable {
+
+    private final OPCPackage opcPackage;
+    private final Path spooledFile;
+    private final XSSFReader reader;
+    private final ReadOnlySharedStringsTable sharedStrings;
+    private final StylesTable styles;
+    private final Map<Integer, Boolean> dateStyleCache = new HashMap<>();
+    private List<String> sheetNames;
+    private Boolean date1904;
+
+    private ExcelStreamingReader(OPCPackage opcPackage, Path spooledFile) {
+        this.opcPackage = opcPackage;
+        this.spooledFile = spooledFile;
+        try {
+            this.reader = new XSSFReader(opcPackage);
+            this.sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+            this.styles = reader.getStylesTable();
+        } catch (IOException | OpenXML4JException | SAXException ex) {
+            closeQuietly();
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public static ExcelStreamingReader open(File file) {
+        try {
+            return new ExcelStreamingReader(OPCPackage.open(file, PackageAccess.READ), null);
+        } catch (OpenXML4JException | RuntimeException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public static ExcelStreamingReader open(MultipartFile file) {
+        try (InputStream is = file.getInputStream()) {
+            return open(is);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public static ExcelStreamingReader open(InputStream is) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("excel-import-", ".xlsx");
+            Files.copy(is, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            return new ExcelStreamingReader(
+                OPCPackage.open(tempFile.toFile(), PackageAccess.READ), tempFile);
+        } catch (IOException | OpenXML4JException | RuntimeException ex) {
+            if (tempFile != null) {
+                FileSystemUtils.safeDeleteFile(tempFile);
+            }
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public List<String> getSheetNames() {
+        if (sheetNames == null) {
+            List<String> names = new ArrayList<>();
+            try {
+                XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+                while (iterator.hasNext()) {
+                    // next 會開啟工作表的串流，只需要名稱，直接關閉
+                    iterator.next().close();
+                    names.add(iterator.getSheetName());
+                }
+            } catch (IOException | OpenXML4JException ex) {
+                throw new InternalServerErrorException(ex);
+            }
+            sheetNames = Collections.unmodifiableList(names);
+        }
+        return sheetNames;
+    }
+
+    // workbook 是否使用 1904 日期系統 (workbookPr 的 date1904)，日期序號需依此轉換
+    public boolean isDate1904() {
+        if (date1904 == null) {
+            Date1904Handler handler = new Date1904Handler();
+            try (InputStream workbookStream = reader.getWorkbookData()) {
+                XMLReader xmlReader = XMLHelper.newXMLReader();
+                xmlReader.setContentHandler(handler);
+                xmlReader.parse(new InputSource(workbookStream));
+            } catch (StopReadingException ignored) {
+                // 已讀到 workbookPr 或 sheets
+            } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException ex) {
+                throw new InternalServerErrorException(ex);
+            }
+            date1904 = handler.date1904;
+        }
+        return date1904;
+    }
+
+    public boolean readSheet(int sheetIndex, ExcelRowHandler handler) {
+        return readSheet(sheetIndex, null, null, handler);
+    }
+
+    /**
+     * 只載入 columns 中的欄位，其餘儲存格不查共用字串也不轉換數值，在 ExcelRowValues 中視為沒有儲存格
+     *
+     * @param columns null 表示載入全部欄位
+     */
+    public boolean readSheet(int sheetIndex, BitSet columns, ExcelRowHandler handler) {
+        return readSheet(sheetIndex, null, columns, handler);
+    }
+
+    // 找不到工作表時回傳 false
+    public boolean readSheet(String sheetName, ExcelRowHandler handler) {
+        return readSheet(-1, sheetName, null, handler);
+    }
+
+    public boolean readSheet(String sheetName, BitSet columns, ExcelRowHandler handler) {
+        return readSheet(-1, sheetName, columns, handler);
+    }
+
+    private boolean readSheet(int sheetIndex, String sheetName, BitSet columns, ExcelRowHandler handler) {
+        try {
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            int index = 0;
+            while (iterator.hasNext()) {
+                try (InputStream sheetStream = iterator.next()) {
+                    if (index++ == sheetIndex || iterator.getSheetName().equals(sheetName)) {
+                        parseSheet(sheetStream, columns, handler);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } catch (IOException | OpenXML4JException | SAXException | ParserConfigurationException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    private void parseSheet(InputStream sheetStream, BitSet columns, ExcelRowHandler handler)
+        throws IOException, SAXException, ParserConfigurationException {
+        SheetHandler sheetHandler = new SheetHandler(columns, handler, isDate1904());
+        XMLReader xmlReader = XMLHelper.newXMLReader();
+        xmlReader.setContentHandler(sheetHandler);
+        try {
+            xmlReader.parse(new InputSource(sheetStream));
+        } catch (StopReadingException ignored) {
+            // handler 要求提前結束
+        }
+    }
+
+    private boolean isDateStyle(int styleIndex) {
+        return dateStyleCache.computeIfAbsent(styleIndex, index -> {
+            XSSFCellStyle style = styles == null ? null : styles.getStyleAt(index);
+            if (style == null) {
+                return false;
+            }
+            short formatIndex = style.getDataFormat();
+            String formatString = style.getDataFormatString();
+            if (formatString == null) {
+                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+            return DateUtil.isADateFormat(formatIndex, formatString);
+        });
+    }
+
+    private static int columnIndexOf(String cellRef) {
+        int col = 0;
+        for (int i = 0; i < cellRef.length(); i++) {
+            char c = cellRef.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            opcPackage.revert();
+        } finally {
+            if (spooledFile != null) {
+                FileSystemUtils.safeDeleteFile(spooledFile);
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException | RuntimeException ignored) {
+            // 開啟失敗時的清理，忽略錯誤
+        }
+    }
+
+    private static final class StopReadingException extends SAXException {
+        private static final long serialVersionUID = 1L;
+
+        private StopReadingException() {
+            super("stop reading");
+        }
+    }
+
+    // workbookPr 位於 sheets 之前，讀到其中之一即停止
+    private static final class Date1904Handler extends DefaultHandler {
+        private boolean date1904;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes)
+            throws SAXException {
+            if ("workbookPr".equals(localName)) {
+                String value = attributes.getValue("date1904");
+                date1904 = "1".equals(value) || "true".equals(value);
+                throw new StopReadingException();
+            }
+            if ("sheets".equals(localName)) {
+                throw new StopReadingException();
+            }
+        }
+    }
+
+    private final class SheetHandler extends DefaultHandler {
+        private final BitSet columns;
+        private final ExcelRowHandler rowHandler;
+        private final ExcelRowValues row = new ExcelRowValues();
+        private final StringBuilder text = new StringBuilder();
+        private boolean collecting;
+        private boolean inInlineString;
+        // 目前的儲存格不在 columns 中
+        private boolean skipCell;
+        private int nextRowNum;
+        private int nextColIndex;
+        private int colIndex;
+        private int styleIndex;
+        private String cellType;
+        private String value;
+        private String formula;
+
+        private SheetHandler(BitSet columns, ExcelRowHandler rowHandler, boolean date1904) {
+            this.columns = columns;
+            this.rowHandler = rowHandler;
+            row.setDate1904(date1904);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            switch (localName) {
+                case "row":
+                    String rowRef = attributes.getValue("r");
+                    row.reset(rowRef == null ? nextRowNum : Integer.parseInt(rowRef) - 1);
+                    nextColIndex = 0;
+                    break;
+                case "c":
+                    String cellRef = attributes.getValue("r");
+                    colIndex = cellRef == null ? nextColIndex : columnIndexOf(cellRef);
+                    skipCell = columns != null && !columns.get(colIndex);
+                    if (skipCell) {
+                        break;
+                    }
+                    String style = attributes.getValue("s");
+                    styleIndex = style == null ? 0 : Integer.parseInt(style);
+                    cellType = attributes.getValue("t");
+                    value = null;
+                    formula = null;
+                    break;
+                case "v":
+                case "f":
+                    text.setLength(0);
+                    collecting = !skipCell;
+                    break;
+                case "is":
+                    text.setLength(0);
+                    inInlineString = !skipCell;
+                    break;
+                case "t":
+                    collecting = inInlineString;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                    value = text.toString();
+                    collecting = false;
+                    break;
+                case "f":
+                    formula = text.toString();
+                    collecting = false;
+                    break;
+                case "t":
+                    collecting = false;
+                    break;
+                case "is":
+                    value = text.toString();
+                    inInlineString = false;
+                    break;
+                case "c":
+                    if (!skipCell) {
+                        setCell();
+                    }
+                    nextColIndex = colIndex + 1;
+                    break;
+                case "row":
+                    nextRowNum = row.getRowNum() + 1;
+                    rowHandler.handleRow(row);
+                    if (rowHandler.isFinished()) {
+                        throw new StopReadingException();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collecting) {
+                text.append(ch, start, length);
+            }
+        }
+
+        private void setCell() {
+            if (cellType == null || "n".equals(cellType)) {
+                if (value == null || value.isEmpty()) {
+                    row.setBlank(colIndex);
+                } else {
+                    row.setNumeric(colIndex, Double.parseDouble(value), isDateStyle(styleIndex));
+                }
+            } else {
+                switch (cellType) {
+                    case "s":
+                        String item = value == null ? null
+                            : sharedStrings.getItemAt(Integer.parseInt(value)).getString();
+                        row.setString(colIndex, CellType.STRING, item);
+                        break;
+                    case "inlineStr":
+                    case "str":
+                        row.setString(colIndex, CellType.STRING, value == null ? "" : value);
+                        break;
+                    case "b":
+                        row.setBoolean(colIndex, "1".equals(value));
+                        break;
+                    case "e":
+                        row.setString(colIndex, CellType.ERROR, value);
+                        break;
+                    default:
+                        row.setBlank(colIndex);
+                        break;
+                }
+            }
+            // 共用公式的其餘儲存格沒有公式內容，只保留計算結果
+            if (formula != null && !formula.isEmpty()) {
+                row.setFormula(colIndex, formula);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+/**
+ * 批次加入合併儲存格。Sheet.addMergedRegion 每次都會與所有既有的合併範圍比對 (O(n²))，
+ * 這裡改以每欄一個依起始列排序的索引檢查重疊，commit 時再以不檢查的方式一次加入。
+ * 建立批次時會載入 sheet 既有的合併範圍，commit 之前不可再以其他方式合併同一張 sheet。
+ */
+public class MergedRegionBatch {
+
+    private final Sheet sheet;
+    // 合併完成後的回呼，參數為本次加入的數量
+    private final IntConsumer committedListener;
+    // 欄 -> (起始列 -> 範圍)，同一欄的範圍互不重疊，因此只需檢查前一個範圍
+    private final Map<Integer, TreeMap<Integer, CellRangeAddress>> columnIndex = new HashMap<>();
+    private final List<CellRangeAddress> pending = new ArrayList<>();
+
+    MergedRegionBatch(Sheet sheet, IntConsumer committedListener) {
+        this.sheet = sheet;
+        this.committedListener = committedListener;
+        for (CellRangeAddress region : sheet.getMergedRegions()) {
+            index(region);
+        }
+    }
+
+    /**
+     * 與 mergeCells 相同，數量為 0 時視為 1
+     */
+    public MergedRegionBatch add(
+        int rowStartIndex, int mergedRowCount, int colStartIndex,
+        int mergedColumnCount) {
+        int rowEndIndex =
+            (mergedRowCount == 0) ? rowStartIndex : (rowStartIndex + mergedRowCount - 1);
+        int colEndIndex =
+            (mergedColumnCount == 0) ? colStartIndex : (colStartIndex + mergedColumnCount - 1);
+        return add(new CellRangeAddress(rowStartIndex, rowEndIndex, colStartIndex, colEndIndex));
+    }
+
+    public MergedRegionBatch add(CellRangeAddress region) {
+        if (region.getNumberOfCells() < 2) {
+            throw new IllegalArgumentException(
+                "Merged region " + region.formatAsString() + " must contain 2 or more cells");
+        }
+        CellRangeAddress overlapped = findOverlap(region);
+        if (overlapped != null) {
+            throw new IllegalStateException("Cannot add merged region " + region.formatAsString()
+                + " because it overlaps with an existing merged region ("
+                + overlapped.formatAsString() + ").");
+        }
+        index(region);
+        pending.add(region);
+        return this;
+    }
+
+    public boolean isOverlapped(CellRangeAddress region) {
+        return findOverlap(region) != null;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 加入所有待合併的範圍，回傳加入的數量
+     */
+    public int commit() {
+        for (CellRangeAddress region : pending) {
+            sheet.addMergedRegionUnsafe(region);
+        }
+        int count = pending.size();
+        pending.clear();
+        if (committedListener != null && count > 0) {
+            committedListener.accept(count);
+        }
+        return count;
+    }
+
+    private CellRangeAddress findOverlap(CellRangeAddress region) {
+        for (int col = region.getFirstColumn(); col <= region.getLastColumn(); col++) {
+            TreeMap<Integer, CellRangeAddress> rows = columnIndex.get(col);
+            if (rows == null) {
+                continue;
+            }
+            Map.Entry<Integer, CellRangeAddress> previous = rows.floorEntry(region.getLastRow());
+            if (previous != null && previous.getValue().getLastRow() >= region.getFirstRow()) {
+                return previous.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void index(CellRangeAddress region) {
+        for (int col = region.getFirstColumn(); col <= region.getLastColumn(); col++) {
+            columnIndex.computeIfAbsent(col, key -> new TreeMap<>())
+                .put(region.getFirstRow(), region);
+        }
+    }
+}
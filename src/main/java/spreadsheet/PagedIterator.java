@@ -0,0 +1,56 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * 將分頁查詢 (page -> List) 轉成 Iterator，一次只保留一頁資料在記憶體中。
+ * pageLoader 回傳 null 或空 List 時視為沒有下一頁。
+ */
+public class PagedIterator<T> implements Iterator<T> {
+
+    private final IntFunction<? extends List<? extends T>> pageLoader;
+    private Iterator<? extends T> current = Collections.emptyIterator();
+    private int nextPage;
+    private boolean exhausted;
+
+    public PagedIterator(IntFunction<? extends List<? extends T>> pageLoader) {
+        this(pageLoader, 0);
+    }
+
+    public PagedIterator(IntFunction<? extends List<? extends T>> pageLoader, int firstPage) {
+        this.pageLoader = pageLoader;
+        this.nextPage = firstPage;
+    }
+
+    public static <T> PagedIterator<T> of(IntFunction<? extends List<? extends T>> pageLoader) {
+        return new PagedIterator<>(pageLoader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (exhausted) {
+                return false;
+            }
+            List<? extends T> page = pageLoader.apply(nextPage++);
+            if (page == null || page.isEmpty()) {
+                exhausted = true;
+                return false;
+            }
+            current = page.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next();
+    }
+}
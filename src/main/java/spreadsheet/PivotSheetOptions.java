@@ -0,0 +1,29 @@
+package com.tp.asset_ap.spreadsheet;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * generatePivotSheet 的版面設定，樣式為 null 時使用 Excel 預設樣式
+ */
+@Builder
+@Setter
+@Getter
+public class PivotSheetOptions {
+    // 左上角的標題，例如 "資產項目"
+    private String cornerLabel;
+    // 最右側各列合計的欄位名稱，null 時不輸出該欄
+    @Builder.Default
+    private String rowTotalLabel = "小計";
+    // 最下方各欄合計的列名稱，null 時不輸出該列
+    @Builder.Default
+    private String columnTotalLabel = "總計";
+    // 合計改以 SUM 公式輸出，開啟檔案時由 Excel 重新計算
+    private boolean sumFormula;
+    private SpreadsheetStyle headerStyle;
+    private SpreadsheetStyle rowLabelStyle;
+    private SpreadsheetStyle valueStyle;
+    private SpreadsheetStyle rowTotalStyle;
+    private SpreadsheetStyle columnTotalStyle;
+}
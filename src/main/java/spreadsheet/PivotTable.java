@@ -0,0 +1,176 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * 交叉表 (列 x 欄) 的彙總資料，供 generatePivotSheet 輸出。
+ * 金額以 long 的最小單位 (預設為分，小數 2 位) 累加在連續的陣列中，不為每一格建立 BigDecimal，
+ * 沒有資料的組合視為 0。列與欄的順序為傳入 Map 的走訪順序。
+ * 累加與合計超出 long 範圍時拋出 ArithmeticException，不會溢位成錯誤的金額。
+ */
+public final class PivotTable<R, C> {
+
+    private static final int DEFAULT_SCALE = 2;
+
+    private final List<R> rowKeys;
+    private final List<String> rowLabels;
+    private final Map<R, Integer> rowIndexes;
+    private final List<C> columnKeys;
+    private final List<String> columnLabels;
+    private final Map<C, Integer> columnIndexes;
+    // 小數位數，例如 2 表示以分為單位
+    private final int scale;
+    // 以列為主的 rowCount * columnCount 陣列
+    private final long[] values;
+
+    public PivotTable(Map<R, String> rows, Map<C, String> columns) {
+        this(rows, columns, DEFAULT_SCALE);
+    }
+
+    public PivotTable(Map<R, String> rows, Map<C, String> columns, int scale) {
+        this.rowKeys = new ArrayList<>(rows.keySet());
+        this.rowLabels = new ArrayList<>(rows.values());
+        this.rowIndexes = indexOf(rowKeys);
+        this.columnKeys = new ArrayList<>(columns.keySet());
+        this.columnLabels = new ArrayList<>(columns.values());
+        this.columnIndexes = indexOf(columnKeys);
+        this.scale = scale;
+        this.values = new long[Math.multiplyExact(rowKeys.size(), columnKeys.size())];
+    }
+
+    private static <K> Map<K, Integer> indexOf(List<K> keys) {
+        Map<K, Integer> indexes = new HashMap<>(keys.size() * 2);
+        for (int i = 0; i < keys.size(); i++) {
+            indexes.put(keys.get(i), i);
+        }
+        return indexes;
+    }
+
+    public <T> PivotTable<R, C> aggregate(
+        Iterable<? extends T> data, Function<? super T, ? extends R> rowKeyExtractor,
+        Function<? super T, ? extends C> columnKeyExtractor, ToLongFunction<? super T> valueExtractor) {
+        for (T item : data) {
+            add(rowKeyExtractor.apply(item), columnKeyExtractor.apply(item),
+                valueExtractor.applyAsLong(item));
+        }
+        return this;
+    }
+
+    // 不在列或欄清單中的 key 會拋出 IllegalArgumentException
+    public PivotTable<R, C> add(R rowKey, C columnKey, long unscaledValue) {
+        return add(requireRowIndex(rowKey), requireColumnIndex(columnKey), unscaledValue);
+    }
+
+    public PivotTable<R, C> add(R rowKey, C columnKey, BigDecimal value) {
+        if (value == null) {
+            return this;
+        }
+        return add(rowKey, columnKey, toUnscaled(value));
+    }
+
+    public PivotTable<R, C> add(int rowIndex, int columnIndex, long unscaledValue) {
+        int offset = rowIndex * columnKeys.size() + columnIndex;
+        values[offset] = Math.addExact(values[offset], unscaledValue);
+        return this;
+    }
+
+    // 轉成以最小單位表示的 long，多出的小數位四捨五入
+    public long toUnscaled(BigDecimal value) {
+        return value.setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public int rowIndexOf(R rowKey) {
+        Integer index = rowIndexes.get(rowKey);
+        return index == null ? -1 : index;
+    }
+
+    public int columnIndexOf(C columnKey) {
+        Integer index = columnIndexes.get(columnKey);
+        return index == null ? -1 : index;
+    }
+
+    private int requireRowIndex(R rowKey) {
+        int index = rowIndexOf(rowKey);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown pivot row key: " + rowKey);
+        }
+        return index;
+    }
+
+    private int requireColumnIndex(C columnKey) {
+        int index = columnIndexOf(columnKey);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown pivot column key: " + columnKey);
+        }
+        return index;
+    }
+
+    public int getRowCount() {
+        return rowKeys.size();
+    }
+
+    public int getColumnCount() {
+        return columnKeys.size();
+    }
+
+    public List<R> getRowKeys() {
+        return Collections.unmodifiableList(rowKeys);
+    }
+
+    public List<C> getColumnKeys() {
+        return Collections.unmodifiableList(columnKeys);
+    }
+
+    public String getRowLabel(int rowIndex) {
+        return rowLabels.get(rowIndex);
+    }
+
+    public String getColumnLabel(int columnIndex) {
+        return columnLabels.get(columnIndex);
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public long getUnscaledValue(int rowIndex, int columnIndex) {
+        return values[rowIndex * columnKeys.size() + columnIndex];
+    }
+
+    public BigDecimal getValue(int rowIndex, int columnIndex) {
+        return BigDecimal.valueOf(getUnscaledValue(rowIndex, columnIndex), scale);
+    }
+
+    public long getUnscaledRowTotal(int rowIndex) {
+        long total = 0;
+        int offset = rowIndex * columnKeys.size();
+        for (int col = 0; col < columnKeys.size(); col++) {
+            total = Math.addExact(total, values[offset + col]);
+        }
+        return total;
+    }
+
+    public long getUnscaledColumnTotal(int columnIndex) {
+        long total = 0;
+        for (int offset = columnIndex; offset < values.length; offset += columnKeys.size()) {
+            total = Math.addExact(total, values[offset]);
+        }
+        return total;
+    }
+
+    public long getUnscaledGrandTotal() {
+        long total = 0;
+        for (long value : values) {
+            total = Math.addExact(total, value);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,134 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * 寫入文字時即計算所需列高並調高該列，取代寫完後再走訪整張表的 autoSetRowHeight。
+ * 計算方式與 setRowHeight(rowIndex, totalWidth, textSize, fontSize) 相同，
+ * 欄寬與字型大小會快取，因此已被 SXSSF flush 的列也有正確列高。
+ * 跨欄合併的儲存格不列入計算，每個 sheet 一個實例，同一時間只能由一個執行緒寫入。
+ */
+public class RowHeightEstimator {
+
+    private static final int INITIAL_COLUMNS = 16;
+
+    private final Sheet sheet;
+    private final SpreadsheetStyleRegistry styleRegistry;
+    private final float defaultRowHeight;
+    private final int defaultFontSize;
+    private final Set<Long> excludedCells = new HashSet<>();
+    // 欄寬 (字寬)，0 表示尚未讀取
+    private double[] columnWidths = new double[INITIAL_COLUMNS];
+    // 以 CellStyle index 快取字型大小，0 表示尚未讀取
+    private int[] styleFontSizes = new int[INITIAL_COLUMNS];
+    // 目前這一列的最大行數、所在欄與其餘儲存格的最大行數
+    private int currentRowIndex = -1;
+    private int maxLines;
+    private int maxLinesCol;
+    private int secondLines;
+
+    // 字型大小由 styleRegistry 讀取，平行寫入其他工作表時不會與新增字型衝突
+    RowHeightEstimator(Sheet sheet, SpreadsheetStyleRegistry styleRegistry) {
+        this.sheet = sheet;
+        this.styleRegistry = styleRegistry;
+        this.defaultRowHeight = sheet.getDefaultRowHeightInPoints();
+        this.defaultFontSize = styleRegistry.getFontHeightInPoints(0);
+    }
+
+    public void record(Row row, int colIndex, Object value, int fontSize) {
+        if (!(value instanceof CharSequence) || colIndex < 0) {
+            return;
+        }
+        int rowIndex = row.getRowNum();
+        if (!excludedCells.isEmpty() && excludedCells.contains(cellKey(rowIndex, colIndex))) {
+            return;
+        }
+        if (rowIndex != currentRowIndex) {
+            currentRowIndex = rowIndex;
+            maxLines = 1;
+            maxLinesCol = -1;
+            secondLines = 1;
+        }
+        int lines = neededLines(colIndex, ((CharSequence) value).length(),
+            fontSize > 0 ? fontSize : defaultFontSize);
+        if (lines > maxLines) {
+            if (maxLinesCol != colIndex) {
+                secondLines = maxLines;
+            }
+            maxLines = lines;
+            maxLinesCol = colIndex;
+            raiseHeight(row, lines);
+        } else if (lines > secondLines && maxLinesCol != colIndex) {
+            secondLines = lines;
+        }
+    }
+
+    public void record(Row row, int colIndex, Object value, CellStyle style) {
+        if (value instanceof CharSequence) {
+            record(row, colIndex, value, style == null ? 0 : fontSizeOf(style));
+        }
+    }
+
+    // 跨欄合併的儲存格，合併前後寫入的值都不列入列高
+    public void exclude(int rowIndex, int colIndex) {
+        excludedCells.add(cellKey(rowIndex, colIndex));
+        if (rowIndex == currentRowIndex && colIndex == maxLinesCol) {
+            maxLines = secondLines;
+            maxLinesCol = -1;
+            Row row = sheet.getRow(rowIndex);
+            if (row != null) {
+                row.setHeightInPoints(maxLines * defaultRowHeight);
+            }
+        }
+    }
+
+    // 欄寬變更後需重新讀取
+    public void invalidateColumnWidths() {
+        Arrays.fill(columnWidths, 0);
+    }
+
+    private void raiseHeight(Row row, int lines) {
+        float height = lines * defaultRowHeight;
+        if (height > row.getHeightInPoints()) {
+            row.setHeightInPoints(height);
+        }
+    }
+
+    private int neededLines(int colIndex, int textSize, int fontSize) {
+        // 欄寬 *4.8，與 setRowHeight 相同
+        double columnWidth = 4.8 * getColumnWidth(colIndex);
+        int chartSize = textSize * fontSize;
+        return (int) Math.ceil(Math.ceil(chartSize / columnWidth) * Math.ceil(fontSize / 12.0));
+    }
+
+    private double getColumnWidth(int colIndex) {
+        if (colIndex >= columnWidths.length) {
+            columnWidths = Arrays.copyOf(columnWidths, Math.max(colIndex + 1, columnWidths.length * 2));
+        }
+        if (columnWidths[colIndex] == 0) {
+            columnWidths[colIndex] = sheet.getColumnWidth(colIndex) / 256D;
+        }
+        return columnWidths[colIndex];
+    }
+
+    private int fontSizeOf(CellStyle style) {
+        int index = style.getIndex();
+        if (index >= styleFontSizes.length) {
+            styleFontSizes = Arrays.copyOf(styleFontSizes, Math.max(index + 1, styleFontSizes.length * 2));
+        }
+        if (styleFontSizes[index] == 0) {
+            styleFontSizes[index] = styleRegistry.getFontHeightInPoints(style);
+        }
+        return styleFontSizes[index];
+    }
+
+    private static long cellKey(int rowIndex, int colIndex) {
+        return ((long) rowIndex << 32) | (colIndex & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,61 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.List;
+
+/**
+ * generateRowSpanSheet 的單次寫入流程：整份資料共用同一個 ExcelColumnBinder 與 RowWriter，
+ * 每寫完一組即加入前幾欄的垂直合併，並在 setIdColIndex 填入組內編號 (從 1 開始)。
+ */
+final class RowSpanWriter {
+
+    private final List<ExcelColumnBinder.Column> columns;
+    private final RowWriter rowWriter;
+    private final MergedRegionBatch mergeBatch;
+    private final int setIdColIndex;
+    private final SpreadsheetStyle idStyle;
+    private int rowIndex;
+    private int groupStartRow;
+    private int groupSize;
+
+    RowSpanWriter(
+        ExcelColumnBinder binder, RowWriter rowWriter, MergedRegionBatch mergeBatch,
+        int startRowIndex, int setIdColIndex) {
+        this.columns = binder.getColumns();
+        this.rowWriter = rowWriter;
+        this.mergeBatch = mergeBatch;
+        this.setIdColIndex = setIdColIndex;
+        this.idStyle = binder.getColumn(0).getStyle();
+        this.rowIndex = startRowIndex;
+        this.groupStartRow = startRowIndex;
+    }
+
+    void write(Object data) {
+        rowWriter.startRow(rowIndex);
+        for (ExcelColumnBinder.Column column : columns) {
+            rowWriter.write(column.getColIndex(), column.read(data), column.getStyle());
+        }
+        groupSize++;
+        rowWriter.write(setIdColIndex, groupSize, idStyle);
+        rowIndex++;
+    }
+
+    void endGroup() {
+        //            合併欄位的列(僅有一筆資料時不用合併)
+        if (groupSize > 1) {
+            for (int colNum = 0; colNum < setIdColIndex; colNum++) {
+                mergeBatch.add(groupStartRow, groupSize, colNum, 0);
+            }
+        }
+        groupStartRow = rowIndex;
+        groupSize = 0;
+    }
+
+    RowWriter getRowWriter() {
+        return rowWriter;
+    }
+
+    void finish() {
+        endGroup();
+        mergeBatch.commit();
+    }
+}
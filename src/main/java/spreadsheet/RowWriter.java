@@ -0,0 +1,168 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * 逐列寫入的游標，每列只查詢/建立一次 Row，新建的列直接建立 Cell 不再查詢。
+ * 以 SpreadsheetStyle 寫入時，每一欄會記住上一次轉換出的 CellStyle，同樣的樣式不再查詢樣式表，
+ * 因此傳入的 SpreadsheetStyle 寫入後不可再修改。
+ */
+public class RowWriter {
+
+    private static final int INITIAL_COLUMNS = 16;
+
+    private final Sheet sheet;
+    private final SpreadsheetStyleRegistry styleRegistry;
+    // 未啟用 trackCellWidth 時為 null
+    private final ColumnWidthEstimator widthEstimator;
+    // 未啟用 trackRowHeight 時為 null
+    private final RowHeightEstimator heightEstimator;
+    private final ZoneId zoneId;
+    private Row row;
+    private boolean newRow;
+    // 寫入的列數與儲存格數，供 SpreadsheetMetrics 彙總回報
+    private long rowCount;
+    private long cellCount;
+    private SpreadsheetStyle[] lastStyles = new SpreadsheetStyle[INITIAL_COLUMNS];
+    private String[] lastDataFormats = new String[INITIAL_COLUMNS];
+    private CellStyle[] resolvedStyles = new CellStyle[INITIAL_COLUMNS];
+
+    RowWriter(
+        Sheet sheet, SpreadsheetStyleRegistry styleRegistry,
+        ColumnWidthEstimator widthEstimator, RowHeightEstimator heightEstimator, ZoneId zoneId) {
+        this.sheet = sheet;
+        this.styleRegistry = styleRegistry;
+        this.widthEstimator = widthEstimator;
+        this.heightEstimator = heightEstimator;
+        this.zoneId = zoneId;
+    }
+
+    public RowWriter startRow(int rowIndex) {
+        row = sheet.getRow(rowIndex);
+        newRow = row == null;
+        if (newRow) {
+            row = sheet.createRow(rowIndex);
+        }
+        rowCount++;
+        return this;
+    }
+
+    public RowWriter write(int colIndex, Object value, CellStyle style) {
+        Cell cell = getOrCreateCell(colIndex);
+        ExcelSpreadsheet.writeTypedValue(cell, value, zoneId);
+        if (widthEstimator != null) {
+            widthEstimator.record(row.getRowNum(), colIndex, value,
+                style == null ? null : style.getDataFormatString(), 0);
+        }
+        if (heightEstimator != null) {
+            heightEstimator.record(row, colIndex, value, style);
+        }
+        if (style != null) {
+            cell.setCellStyle(style);
+        } else {
+            String dataFormat = ExcelSpreadsheet.defaultDataFormat(value);
+            if (dataFormat != null) {
+                cell.setCellStyle(styleRegistry.getDataFormatStyle(dataFormat));
+            }
+        }
+        return this;
+    }
+
+    public RowWriter write(int colIndex, Object value, SpreadsheetStyle style) {
+        Cell cell = getOrCreateCell(colIndex);
+        ExcelSpreadsheet.writeTypedValue(cell, value, zoneId);
+        if (widthEstimator != null) {
+            widthEstimator.record(row.getRowNum(), colIndex, value,
+                style == null ? null : style.getDataFormat(), ExcelSpreadsheet.fontSizeOf(style));
+        }
+        if (heightEstimator != null) {
+            heightEstimator.record(row, colIndex, value, ExcelSpreadsheet.fontSizeOf(style));
+        }
+        String dataFormat = ExcelSpreadsheet.defaultDataFormat(value);
+        if (style != null) {
+            cell.setCellStyle(resolveStyle(colIndex, style, dataFormat));
+        } else if (dataFormat != null) {
+            cell.setCellStyle(styleRegistry.getDataFormatStyle(dataFormat));
+        }
+        return this;
+    }
+
+    // 數值不經過 boxing 直接寫入
+    public RowWriter writeNumber(int colIndex, double value, SpreadsheetStyle style) {
+        Cell cell = getOrCreateCell(colIndex);
+        cell.setCellValue(value);
+        if (widthEstimator != null) {
+            widthEstimator.record(row.getRowNum(), colIndex, value,
+                style == null ? null : style.getDataFormat(), ExcelSpreadsheet.fontSizeOf(style));
+        }
+        if (style != null) {
+            cell.setCellStyle(resolveStyle(colIndex, style, null));
+        }
+        return this;
+    }
+
+    /**
+     * @param cachedValue 公式的計算結果，Excel 重新計算前顯示此值
+     */
+    public RowWriter writeFormula(int colIndex, String formula, double cachedValue, SpreadsheetStyle style) {
+        Cell cell = getOrCreateCell(colIndex);
+        cell.setCellFormula(formula);
+        cell.setCellValue(cachedValue);
+        if (widthEstimator != null) {
+            widthEstimator.record(row.getRowNum(), colIndex, cachedValue,
+                style == null ? null : style.getDataFormat(), ExcelSpreadsheet.fontSizeOf(style));
+        }
+        if (style != null) {
+            cell.setCellStyle(resolveStyle(colIndex, style, null));
+        }
+        return this;
+    }
+
+    public Row getRow() {
+        return row;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getCellCount() {
+        return cellCount;
+    }
+
+    private Cell getOrCreateCell(int colIndex) {
+        if (row == null) {
+            throw new IllegalStateException("startRow must be called before write");
+        }
+        cellCount++;
+        Cell cell = newRow ? null : row.getCell(colIndex);
+        return cell == null ? row.createCell(colIndex) : cell;
+    }
+
+    private CellStyle resolveStyle(int colIndex, SpreadsheetStyle style, String dataFormat) {
+        ensureCapacity(colIndex);
+        if (lastStyles[colIndex] != style || !Objects.equals(lastDataFormats[colIndex], dataFormat)) {
+            lastStyles[colIndex] = style;
+            lastDataFormats[colIndex] = dataFormat;
+            resolvedStyles[colIndex] = styleRegistry.getCellStyle(style, dataFormat);
+        }
+        return resolvedStyles[colIndex];
+    }
+
+    private void ensureCapacity(int colIndex) {
+        if (colIndex < lastStyles.length) {
+            return;
+        }
+        int capacity = Math.max(colIndex + 1, lastStyles.length * 2);
+        lastStyles = Arrays.copyOf(lastStyles, capacity);
+        lastDataFormats = Arrays.copyOf(lastDataFormats, capacity);
+        resolvedStyles = Arrays.copyOf(resolvedStyles, capacity);
+    }
+}
@@ -0,0 +1,11 @@
+package com.tp.asset_ap.spreadsheet;
+
+/**
+ * 平行產生工作表時，每個工作表各自的寫入邏輯。
+ * 傳入的 ExcelSpreadsheet 只綁定該工作表，不可切換到其他工作表。
+ */
+@FunctionalInterface
+public interface SheetWriter {
+
+    void write(ExcelSpreadsheet sheet) throws Exception;
+}
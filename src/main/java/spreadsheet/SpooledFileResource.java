@@ -0,0 +1,111 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.util.FileSystemUtils;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.core.io.FileSystemResource;
+
+/**
+ * 匯出時暫存在磁碟上的檔案，回傳給 Controller 時不需把整個檔案放進 heap。
+ * 只能讀取一次：getInputStream 或 readableChannel 取得的串流關閉後即刪除暫存檔，之後再讀取會拋出
+ * FileNotFoundException。isFile 回傳 false，讓 Spring 以串流讀取而不是直接使用 getFile 的 zero-copy 傳送。
+ * 未讀取、或以 getFile 自行讀取時，由呼叫端 close 刪除暫存檔。
+ */
+public class SpooledFileResource extends FileSystemResource implements Closeable {
+
+    private final long writtenBytes;
+    private final AtomicBoolean deleted = new AtomicBoolean();
+
+    public SpooledFileResource(Path path, long writtenBytes) {
+        super(path);
+        this.writtenBytes = writtenBytes;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        checkNotDeleted();
+        return new FilterInputStream(super.getInputStream()) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    SpooledFileResource.this.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public ReadableByteChannel readableChannel() throws IOException {
+        checkNotDeleted();
+        ReadableByteChannel channel = super.readableChannel();
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                return channel.read(dst);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    channel.close();
+                } finally {
+                    SpooledFileResource.this.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean isFile() {
+        return false;
+    }
+
+    @Override
+    public boolean exists() {
+        return !deleted.get() && super.exists();
+    }
+
+    @Override
+    public boolean isReadable() {
+        return !deleted.get() && super.isReadable();
+    }
+
+    @Override
+    public long contentLength() {
+        return writtenBytes;
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    private void checkNotDeleted() throws FileNotFoundException {
+        if (deleted.get()) {
+            throw new FileNotFoundException(getDescription() + " 已讀取並刪除，只能讀取一次");
+        }
+    }
+
+    // 刪除暫存檔，可重複呼叫
+    @Override
+    public void close() {
+        if (deleted.compareAndSet(false, true)) {
+            FileSystemUtils.safeDeleteFile(getFile().toPath());
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.tp.asset_ap.spreadsheet;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
 
 import org.springframework.core.io.Resource;
 
-public interface Spreadsheet {
+public interface Spreadsheet extends Closeable {
 
     <T> Spreadsheet generateSheet(List<T> dataList) throws IllegalAccessException;
 
@@ -23,10 +30,36 @@ public interface Spreadsheet {
         String title, boolean showColumnHeader, int titleShiftRowSize, boolean hasCreateDate)
         throws IllegalAccessException;
 
+    <T> Spreadsheet generateSheet(Iterator<? extends T> dataIterator, Class<T> type);
+
+    <T> Spreadsheet generateSheet(
+        Iterator<? extends T> dataIterator, Class<T> type, int startRowIndex, int startColIndex,
+        String title, boolean showColumnHeader, int titleShiftRowSize, boolean hasCreateDate);
+
+    <T> Spreadsheet generateSheet(Stream<? extends T> dataStream, Class<T> type);
+
+    <T> Spreadsheet generateSheet(
+        Stream<? extends T> dataStream, Class<T> type, int startRowIndex, int startColIndex,
+        String title, boolean showColumnHeader, int titleShiftRowSize, boolean hasCreateDate);
+
+    <T> Spreadsheet generateSheet(IntFunction<? extends List<? extends T>> pageLoader, Class<T> type);
+
     <T> Spreadsheet generateRowSpanSheet(
         Map<Integer, List<T>> dataMap,
         int startRowIndex, int startColIndex, int setIdColIndex) throws IllegalAccessException;
 
+    <T> Spreadsheet generateRowSpanSheet(
+        Iterator<? extends List<? extends T>> groupIterator, Class<T> type,
+        int startRowIndex, int startColIndex, int setIdColIndex);
+
+    <T> Spreadsheet generateRowSpanSheet(
+        Iterator<? extends T> dataIterator, Function<? super T, ?> groupKeyExtractor,
+        Class<T> type, int startRowIndex, int startColIndex, int setIdColIndex);
+
+    Spreadsheet generatePivotSheet(
+        PivotTable<?, ?> pivot, int startRowIndex, int startColIndex,
+        PivotSheetOptions options);
+
     <T> ExcelSpreadsheet buildColumnValue(
         List<T> dataList, int startRowIndex,
         int startColIndex) throws IllegalAccessException;
@@ -83,12 +116,22 @@ public interface Spreadsheet {
         int rowStartIndex, int mergedRowCount, int colStartIndex,
         int mergedColumnCount, SpreadsheetStyle style, boolean isWorkingCellAutoRowHeight);
 
+    MergedRegionBatch mergeBatch();
+
     void setRowHeight(int rowIndex, int totalWidth, int textSize, int fontSize);
 
     Spreadsheet autoCellWidth();
 
     void autoAllCellWidth(int rowIndex);
 
+    Spreadsheet trackCellWidth();
+
+    Spreadsheet applyTrackedCellWidth();
+
+    Spreadsheet trackRowHeight();
+
+    Spreadsheet setMetrics(SpreadsheetMetrics metrics);
+
     Spreadsheet exportFile(String path, String fileName) throws IOException;
 
     Spreadsheet exportFile(File path, String fileName) throws IOException;
@@ -99,6 +142,14 @@ public interface Spreadsheet {
 
     byte[] getBytes() throws IOException;
 
+    long writeTo(OutputStream outputStream) throws IOException;
+
+    long writeTo(WritableByteChannel channel) throws IOException;
+
+    Resource toFileResource() throws IOException;
+
+    Resource toFileResource(Path tempDir) throws IOException;
+
     String getExtension();
 
     String getMediaTypeValue();
@@ -0,0 +1,67 @@
+package com.tp.asset_ap.spreadsheet;
+
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import lombok.Getter;
+
+/**
+ * 依資料列數 × 欄數預估匯出所需的 heap 與磁碟空間，供 SpreadsheetExportService 做排隊與拒絕的判斷。
+ * 以每個儲存格的平均成本估算，文字很長或樣式很多的報表應自行放大 rows 或 columns。
+ */
+@Getter
+public final class SpreadsheetExportCost {
+
+    // XSSF 每個儲存格在 heap 中的平均大小 (CTCell 與 XSSFCell)
+    private static final long XSSF_CELL_HEAP_BYTES = 700;
+    // SXSSF 在 rowAccessWindowSize 內每個儲存格的平均大小
+    private static final long SXSSF_CELL_HEAP_BYTES = 200;
+    // workbook 本身 (樣式表、共用字串、zip 緩衝) 的基本用量
+    private static final long WORKBOOK_BASE_HEAP_BYTES = 8L * 1024 * 1024;
+    // SXSSF 暫存檔中每個儲存格的 XML 大小，壓縮後約為 1/6
+    private static final long TEMP_CELL_BYTES = 48;
+    private static final long COMPRESSED_TEMP_CELL_BYTES = 8;
+    // 匯出的 xlsx (zip) 中每個儲存格的平均大小
+    private static final long OUTPUT_CELL_BYTES = 12;
+
+    private final long rows;
+    private final int columns;
+    private final long heapBytes;
+    // SXSSF 暫存檔的大小，不含匯出檔
+    private final long diskBytes;
+    private final long outputBytes;
+
+    private SpreadsheetExportCost(long rows, int columns, long heapBytes, long diskBytes, long outputBytes) {
+        this.rows = rows;
+        this.columns = columns;
+        this.heapBytes = heapBytes;
+        this.diskBytes = diskBytes;
+        this.outputBytes = outputBytes;
+    }
+
+    // 預設的 SXSSF workbook 與 ExcelSpreadsheet 的預設暫存檔設定
+    public static SpreadsheetExportCost estimate(long rows, int columns) {
+        return estimate(rows, columns, ExcelSpreadsheet.ExcelType.SXSS,
+            SXSSFWorkbook.DEFAULT_WINDOW_SIZE, ExcelSpreadsheet.getDefaultTempStorage());
+    }
+
+    public static SpreadsheetExportCost estimate(
+        long rows, int columns, ExcelSpreadsheet.ExcelType excelType,
+        int rowAccessWindowSize, SpreadsheetTempStorage tempStorage) {
+        long cells = Math.max(0, rows) * Math.max(0, columns);
+        long outputBytes = cells * OUTPUT_CELL_BYTES;
+        if (excelType == ExcelSpreadsheet.ExcelType.XSS) {
+            return new SpreadsheetExportCost(rows, columns,
+                WORKBOOK_BASE_HEAP_BYTES + cells * XSSF_CELL_HEAP_BYTES, 0, outputBytes);
+        }
+        long windowCells = Math.min(Math.max(0, rows), rowAccessWindowSize) * Math.max(0, columns);
+        long tempCellBytes = tempStorage.isCompress() ? COMPRESSED_TEMP_CELL_BYTES : TEMP_CELL_BYTES;
+        return new SpreadsheetExportCost(rows, columns,
+            WORKBOOK_BASE_HEAP_BYTES + windowCells * SXSSF_CELL_HEAP_BYTES, cells * tempCellBytes, outputBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SpreadsheetExportCost(rows=" + rows + ", columns=" + columns + ", heapBytes=" + heapBytes
+            + ", diskBytes=" + diskBytes + ", outputBytes=" + outputBytes + ")";
+    }
+}
@@ -0,0 +1,35 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.nio.file.Path;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * SpreadsheetExportService 的並行數與資源預算。
+ * 同時執行的工作預估用量總和超過預算時，後到的工作排隊；佇列已滿或單一工作就超過預算時拒絕。
+ */
+@Builder
+@Getter
+public class SpreadsheetExportLimits {
+
+    // 同時執行的匯出工作數
+    @Builder.Default
+    private final int maxConcurrentJobs = 2;
+    // 等待執行的工作數上限，超過時拒絕
+    @Builder.Default
+    private final int maxQueuedJobs = 16;
+    // 執行中工作預估 heap 用量的總和上限，0 表示不限制
+    @Builder.Default
+    private final long heapBudgetBytes = Runtime.getRuntime().maxMemory() / 4;
+    // 執行中工作預估暫存檔與匯出檔大小的總和上限，0 表示不限制
+    private final long diskBudgetBytes;
+    // 預估匯出檔大於此值時先寫入暫存檔 (SpooledFileResource)，否則直接放在 heap 中
+    @Builder.Default
+    private final long inMemoryOutputBytes = 8L * 1024 * 1024;
+    // 匯出檔的暫存目錄，null 時使用 java.io.tmpdir
+    private final Path tempDirectory;
+    // 執行環境支援 virtual thread (Java 21 以上) 時使用
+    @Builder.Default
+    private final boolean virtualThreads = true;
+}
@@ -0,0 +1,254 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.exception.BadRequestException;
+import com.tp.asset_ap.exception.InternalServerErrorException;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+
+/**
+ * 非同步匯出服務，以 SpreadsheetExportLimits 限制同時執行的工作數與預估的 heap/磁碟用量，
+ * 避免多個大量匯出同時在 request thread 上執行而耗盡記憶體。
+ * <pre>
+ * CompletableFuture&lt;Resource&gt; future = exportService.submit(
+ *     SpreadsheetExportCost.estimate(dataList.size(), columnCount),
+ *     () -&gt; ExcelSpreadsheet.createWorkbook().generateSheet(dataList));
+ * </pre>
+ * 工作依提交順序執行；排在前面的大工作等待資源時，後面的小工作也會等待，避免大工作一直無法執行。
+ */
+public class SpreadsheetExportService implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpreadsheetExportService.class);
+
+    private final SpreadsheetExportLimits limits;
+    private final ExecutorService executor;
+    private final ArrayDeque<ExportJob> queue = new ArrayDeque<>();
+    private volatile SpreadsheetMetrics metrics = SpreadsheetMetrics.NOOP;
+    private int runningCount;
+    private long reservedHeapBytes;
+    private long reservedDiskBytes;
+    private boolean closed;
+
+    public SpreadsheetExportService(SpreadsheetExportLimits limits) {
+        this.limits = limits;
+        this.executor = createExecutor(limits);
+    }
+
+    // 並行數已由 limits 控制，executor 本身不需限制大小
+    private static ExecutorService createExecutor(SpreadsheetExportLimits limits) {
+        if (limits.isVirtualThreads()) {
+            try {
+                return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                // Java 21 以前沒有 virtual thread
+            }
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "excel-export-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(Math.max(1, limits.getMaxConcurrentJobs()), threadFactory);
+    }
+
+    public void setMetrics(SpreadsheetMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public CompletableFuture<Resource> submit(long rows, int columns, Callable<? extends ExcelSpreadsheet> task) {
+        return submit(SpreadsheetExportCost.estimate(rows, columns), task);
+    }
+
+    /**
+     * @param task 在匯出執行緒上建立並填入 ExcelSpreadsheet，匯出後由服務關閉
+     * @return 單一工作超過預算時以 BadRequestException 失敗，佇列已滿或服務已關閉時以 InternalServerErrorException 失敗；
+     *     取消尚未開始的工作會將其移出佇列
+     */
+    public CompletableFuture<Resource> submit(SpreadsheetExportCost cost, Callable<? extends ExcelSpreadsheet> task) {
+        CompletableFuture<Resource> future = new CompletableFuture<>();
+        if (exceedsBudget(cost.getHeapBytes(), cost.getDiskBytes() + cost.getOutputBytes())) {
+            return reject(future, new BadRequestException("匯出資料量超過上限，請縮小查詢範圍"));
+        }
+        ExportJob job = new ExportJob(cost, task, future);
+        synchronized (this) {
+            if (closed) {
+                return reject(future, new InternalServerErrorException("匯出服務已關閉"));
+            }
+            if (queue.isEmpty() && canStart(job)) {
+                reserve(job);
+            } else if (queue.size() >= limits.getMaxQueuedJobs()) {
+                return reject(future, new InternalServerErrorException("匯出工作過多，請稍後再試"));
+            } else {
+                queue.add(job);
+                metrics.exportQueued(queue.size());
+                future.whenComplete((resource, ex) -> {
+                    if (future.isCancelled()) {
+                        dequeue(job);
+                    }
+                });
+                return future;
+            }
+        }
+        start(job);
+        return future;
+    }
+
+    private CompletableFuture<Resource> reject(CompletableFuture<Resource> future, RuntimeException ex) {
+        metrics.exportRejected();
+        future.completeExceptionally(ex);
+        return future;
+    }
+
+    private boolean exceedsBudget(long heapBytes, long diskBytes) {
+        return (limits.getHeapBudgetBytes() > 0 && heapBytes > limits.getHeapBudgetBytes())
+            || (limits.getDiskBudgetBytes() > 0 && diskBytes > limits.getDiskBudgetBytes());
+    }
+
+    private boolean canStart(ExportJob job) {
+        return runningCount < limits.getMaxConcurrentJobs()
+            && !exceedsBudget(reservedHeapBytes + job.heapBytes, reservedDiskBytes + job.diskBytes);
+    }
+
+    private void reserve(ExportJob job) {
+        runningCount++;
+        reservedHeapBytes += job.heapBytes;
+        reservedDiskBytes += job.diskBytes;
+        metrics.exportStarted(System.nanoTime() - job.submittedNanos, queue.size());
+    }
+
+    private synchronized void dequeue(ExportJob job) {
+        queue.remove(job);
+    }
+
+    private void start(ExportJob job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException ex) {
+            job.future.completeExceptionally(new InternalServerErrorException("匯出服務已關閉"));
+            release(job);
+        }
+    }
+
+    private void run(ExportJob job) {
+        try {
+            if (!job.future.isDone()) {
+                Resource resource = export(job);
+                if (!job.future.complete(resource)) {
+                    discard(resource);
+                }
+            }
+        } catch (Exception ex) {
+            LOGGER.warn("export failed, {}", job.cost, ex);
+            job.future.completeExceptionally(ex);
+        } catch (Error ex) {
+            job.future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            release(job);
+        }
+    }
+
+    private Resource export(ExportJob job) throws Exception {
+        try (ExcelSpreadsheet spreadsheet = job.task.call()) {
+            if (job.cost.getOutputBytes() > limits.getInMemoryOutputBytes()) {
+                return spreadsheet.toFileResource(limits.getTempDirectory());
+            }
+            return spreadsheet.toResource();
+        }
+    }
+
+    // 工作在執行中被取消，結果不會被讀取
+    private static void discard(Resource resource) {
+        if (resource instanceof SpooledFileResource) {
+            ((SpooledFileResource) resource).close();
+        }
+    }
+
+    // 釋放資源後依序啟動佇列中可執行的工作
+    private void release(ExportJob job) {
+        List<ExportJob> startable = new ArrayList<>();
+        synchronized (this) {
+            runningCount--;
+            reservedHeapBytes -= job.heapBytes;
+            reservedDiskBytes -= job.diskBytes;
+            while (!closed && !queue.isEmpty()) {
+                ExportJob next = queue.peek();
+                if (next.future.isDone()) {
+                    queue.poll();
+                } else if (canStart(next)) {
+                    queue.poll();
+                    reserve(next);
+                    startable.add(next);
+                } else {
+                    break;
+                }
+            }
+        }
+        startable.forEach(this::start);
+    }
+
+    // 不再接受新工作，佇列中的工作以 InternalServerErrorException 失敗，執行中的工作會完成
+    @Override
+    public void close() {
+        List<ExportJob> pending;
+        synchronized (this) {
+            closed = true;
+            pending = new ArrayList<>(queue);
+            queue.clear();
+        }
+        pending.forEach(job -> job.future.completeExceptionally(new InternalServerErrorException("匯出服務已關閉")));
+        executor.shutdown();
+    }
+
+    public synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int getRunningCount() {
+        return runningCount;
+    }
+
+    public synchronized long getReservedHeapBytes() {
+        return reservedHeapBytes;
+    }
+
+    public synchronized long getReservedDiskBytes() {
+        return reservedDiskBytes;
+    }
+
+    private static final class ExportJob {
+
+        private final SpreadsheetExportCost cost;
+        private final Callable<? extends ExcelSpreadsheet> task;
+        private final CompletableFuture<Resource> future;
+        private final long heapBytes;
+        private final long diskBytes;
+        private final long submittedNanos = System.nanoTime();
+
+        private ExportJob(
+            SpreadsheetExportCost cost, Callable<? extends ExcelSpreadsheet> task,
+            CompletableFuture<Resource> future) {
+            this.cost = cost;
+            this.task = task;
+            this.future = future;
+            this.heapBytes = cost.getHeapBytes();
+            this.diskBytes = cost.getDiskBytes() + cost.getOutputBytes();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.tp.asset_ap.spreadsheet;
+
+/**
+ * 匯出與匯入的量測回呼，透過 ExcelSpreadsheet.setMetrics / ExcelParserTemplate.setMetrics 設定。
+ * 預設為 NOOP；筆數類的值在整批寫入或解析結束時彙總回報一次，不會每個儲存格呼叫一次。
+ * 平行產生工作表時會由多個執行緒呼叫，實作需為 thread-safe，例如對應到 Micrometer：
+ * <pre>
+ * public void cellsWritten(long count) {
+ *     registry.counter("excel.export.cells").increment(count);
+ * }
+ *
+ * public void phaseCompleted(Phase phase, long nanos) {
+ *     registry.timer("excel.export.phase", "phase", phase.name()).record(nanos, TimeUnit.NANOSECONDS);
+ * }
+ * </pre>
+ */
+public interface SpreadsheetMetrics {
+
+    SpreadsheetMetrics NOOP = new SpreadsheetMetrics() {
+    };
+
+    // 以 RowWriter 寫入的資料列數 (generateSheet、generateRowSpanSheet、generatePivotSheet、writeRow)
+    default void rowsWritten(long count) {
+    }
+
+    default void cellsWritten(long count) {
+    }
+
+    // 實際在 workbook 中新建的 CellStyle 數量，樣式表命中的不列入
+    default void stylesCreated(int count) {
+    }
+
+    default void fontsCreated(int count) {
+    }
+
+    default void mergedRegionsAdded(int count) {
+    }
+
+    // 寫出時 SXSSF 已寫入暫存檔的列數
+    default void rowsFlushed(long count) {
+    }
+
+    // 寫出時 SXSSF 暫存檔的總大小
+    default void tempFileBytes(long bytes) {
+    }
+
+    default void exportBytes(long bytes) {
+    }
+
+    default void phaseCompleted(Phase phase, long nanos) {
+    }
+
+    // 解析器驗證過的資料列數，不含標題列與略過的空白列
+    default void rowsParsed(long count) {
+    }
+
+    default void validationFailed(long count) {
+    }
+
+    // SpreadsheetExportService 的工作進入佇列，queueDepth 為加入後的佇列長度
+    default void exportQueued(int queueDepth) {
+    }
+
+    // SpreadsheetExportService 的工作開始執行，waitNanos 為提交到開始的等待時間
+    default void exportStarted(long waitNanos, int queueDepth) {
+    }
+
+    // 超過預算、佇列已滿或服務已關閉而拒絕的工作
+    default void exportRejected() {
+    }
+
+    enum Phase {
+        TITLE, HEADER, CONTENT, AUTOSIZE, WRITE
+    }
+}
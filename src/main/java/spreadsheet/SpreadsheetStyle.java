@@ -20,4 +20,6 @@ public class SpreadsheetStyle {
     private SpreadsheetBorderPosition borderPosition = SpreadsheetBorderPosition.builder().build();
     private boolean wrapText;
     private XSSFColor backGroundColor;
+    // Excel 儲存格格式，例如 "#,##0.00"、"yyyy/mm/dd"
+    private String dataFormat;
 }
@@ -0,0 +1,381 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import lombok.Value;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+
+/**
+ * 以 workbook 為範圍的樣式登錄表。
+ * SpreadsheetStyle / SpreadsheetFontStyle 是可變物件，因此每次查詢時都轉成不可變的值 key，
+ * 內容相同的樣式與字型只會在 workbook 中建立一次，避免超過 Excel 64000 個樣式的上限。
+ * 平行產生工作表時會由多個執行緒共用，因此查詢與建立皆為同步方法。
+ */
+public class SpreadsheetStyleRegistry {
+
+    // 合併儲存格中位於範圍邊緣的位置，可組合使用，0 為內部儲存格
+    public static final int EDGE_TOP = 1;
+    public static final int EDGE_BOTTOM = 1 << 1;
+    public static final int EDGE_LEFT = 1 << 2;
+    public static final int EDGE_RIGHT = 1 << 3;
+
+    private final Workbook workbook;
+    private final Map<StyleKey, CellStyle> cellStyles = new HashMap<>();
+    private final Map<FontKey, Font> fonts = new HashMap<>();
+    private final Map<String, Short> dataFormats = new HashMap<>();
+    private final Map<String, CellStyle> dataFormatStyles = new HashMap<>();
+    // 合併儲存格外框：由既有樣式複製並改變框線的版本
+    private final Map<BorderedKey, CellStyle> borderedStyles = new HashMap<>();
+    private DataFormat dataFormat;
+    private SpreadsheetMetrics metrics = SpreadsheetMetrics.NOOP;
+    private long styleLookupCount;
+    private long styleHitCount;
+
+    public SpreadsheetStyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    public synchronized void setMetrics(SpreadsheetMetrics metrics) {
+        this.metrics = metrics == null ? SpreadsheetMetrics.NOOP : metrics;
+    }
+
+    public synchronized CellStyle getCellStyle(SpreadsheetStyle style) {
+        return getCellStyle(style, null);
+    }
+
+    /**
+     * @param defaultDataFormat style 沒有指定 dataFormat 時使用的格式 (例如日期)，可為 null
+     */
+    public synchronized CellStyle getCellStyle(SpreadsheetStyle style, String defaultDataFormat) {
+        styleLookupCount++;
+        StyleKey key = StyleKey.of(style, defaultDataFormat);
+        CellStyle cellStyle = cellStyles.get(key);
+        if (cellStyle != null) {
+            styleHitCount++;
+            return cellStyle;
+        }
+        cellStyle = createCellStyle(key);
+        cellStyles.put(key, cellStyle);
+        return cellStyle;
+    }
+
+    /**
+     * 合併儲存格外框用的樣式：複製 base 並只改變 edges 所在邊的框線，字型、對齊、底色與格式維持 base 的設定，
+     * 結果與 RegionUtil.setBorder* 相同。相同的 base 與框線只會建立一次，取代 RegionUtil 逐格搜尋與複製樣式。
+     *
+     * @param base  儲存格目前的樣式
+     * @param style 提供框線的樣式，未設定框線的邊為 NONE
+     * @param edges EDGE_* 的組合
+     */
+    public synchronized CellStyle getBorderedStyle(CellStyle base, SpreadsheetStyle style, int edges) {
+        styleLookupCount++;
+        SpreadsheetBorderPosition position = style.getBorderPosition();
+        BorderStyle border = borderConverter(style.getBorderStyle());
+        BorderStyle top = (edges & EDGE_TOP) == 0 ? base.getBorderTop()
+            : position.isTop() ? border : BorderStyle.NONE;
+        BorderStyle bottom = (edges & EDGE_BOTTOM) == 0 ? base.getBorderBottom()
+            : position.isBottom() ? border : BorderStyle.NONE;
+        BorderStyle left = (edges & EDGE_LEFT) == 0 ? base.getBorderLeft()
+            : position.isLeft() ? border : BorderStyle.NONE;
+        BorderStyle right = (edges & EDGE_RIGHT) == 0 ? base.getBorderRight()
+            : position.isRight() ? border : BorderStyle.NONE;
+        if (top == base.getBorderTop() && bottom == base.getBorderBottom()
+            && left == base.getBorderLeft() && right == base.getBorderRight()) {
+            styleHitCount++;
+            return base;
+        }
+        BorderedKey borderedKey = new BorderedKey(base.getIndex(), top, bottom, left, right);
+        CellStyle cellStyle = borderedStyles.get(borderedKey);
+        if (cellStyle != null) {
+            styleHitCount++;
+            return cellStyle;
+        }
+        cellStyle = workbook.createCellStyle();
+        cellStyle.cloneStyleFrom(base);
+        cellStyle.setBorderTop(top);
+        cellStyle.setBorderBottom(bottom);
+        cellStyle.setBorderLeft(left);
+        cellStyle.setBorderRight(right);
+        metrics.stylesCreated(1);
+        borderedStyles.put(borderedKey, cellStyle);
+        return cellStyle;
+    }
+
+    // 只設定儲存格格式、其餘皆為預設值的樣式
+    public synchronized CellStyle getDataFormatStyle(String format) {
+        return dataFormatStyles.computeIfAbsent(format, key -> {
+            CellStyle cellStyle = workbook.createCellStyle();
+            cellStyle.setDataFormat(getDataFormatIndex(key));
+            metrics.stylesCreated(1);
+            return cellStyle;
+        });
+    }
+
+    private short getDataFormatIndex(String format) {
+        return dataFormats.computeIfAbsent(format, key -> {
+            if (dataFormat == null) {
+                dataFormat = workbook.createDataFormat();
+            }
+            return dataFormat.getFormat(key);
+        });
+    }
+
+    public synchronized Font getFont(SpreadsheetFontStyle fontStyle) {
+        return getFont(FontKey.of(fontStyle));
+    }
+
+    private Font getFont(FontKey key) {
+        return fonts.computeIfAbsent(key, this::createFont);
+    }
+
+    private CellStyle createCellStyle(StyleKey key) {
+        XSSFCellStyle cellStyle = (XSSFCellStyle) workbook.createCellStyle();
+        if (key.getFont() != null) {
+            cellStyle.setFont(getFont(key.getFont()));
+        }
+        cellStyle.setVerticalAlignment(key.getVAlign());
+        cellStyle.setAlignment(key.getHAlign());
+        cellStyle.setWrapText(key.isWrapText());
+        if (key.getBackGroundColor() != null) {
+            cellStyle.setFillForegroundColor(key.getBackGroundColor().color);
+            cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+        }
+        cellStyle.setBorderBottom(key.getBorderBottom());
+        cellStyle.setBorderLeft(key.getBorderLeft());
+        cellStyle.setBorderRight(key.getBorderRight());
+        cellStyle.setBorderTop(key.getBorderTop());
+        if (key.getDataFormat() != null) {
+            cellStyle.setDataFormat(getDataFormatIndex(key.getDataFormat()));
+        }
+        metrics.stylesCreated(1);
+        return cellStyle;
+    }
+
+    private Font createFont(FontKey key) {
+        Font font = workbook.createFont();
+        font.setFontName(key.getFontName());
+        font.setFontHeightInPoints((short) key.getFontSize());
+        font.setBold(key.isBold());
+        font.setColor(key.getColor());
+        metrics.fontsCreated(1);
+        return font;
+    }
+
+    // 樣式所用字型的大小，平行寫入時其他執行緒可能同時新增字型，因此與建立字型使用同一個鎖
+    public synchronized int getFontHeightInPoints(CellStyle style) {
+        return getFontHeightInPoints(style.getFontIndex());
+    }
+
+    public synchronized int getFontHeightInPoints(int fontIndex) {
+        return workbook.getFontAt(fontIndex).getFontHeightInPoints();
+    }
+
+    // 已建立的 CellStyle 數量
+    public synchronized int getCellStyleCount() {
+        return cellStyles.size() + dataFormatStyles.size() + borderedStyles.size();
+    }
+
+    // 已建立的 Font 數量
+    public synchronized int getFontCount() {
+        return fonts.size();
+    }
+
+    public synchronized long getStyleLookupCount() {
+        return styleLookupCount;
+    }
+
+    public synchronized long getStyleHitCount() {
+        return styleHitCount;
+    }
+
+    // 記錄已建立的樣式在 workbook 中的 index，workbook 寫出再讀入後 index 不變
+    synchronized Snapshot snapshot() {
+        Map<StyleKey, Short> cellStyleIndexes = new HashMap<>();
+        cellStyles.forEach((key, cellStyle) -> cellStyleIndexes.put(key, cellStyle.getIndex()));
+        Map<FontKey, Integer> fontIndexes = new HashMap<>();
+        fonts.forEach((key, font) -> fontIndexes.put(key, font.getIndex()));
+        Map<String, Short> dataFormatStyleIndexes = new HashMap<>();
+        dataFormatStyles.forEach((format, cellStyle) -> dataFormatStyleIndexes.put(format, cellStyle.getIndex()));
+        return new Snapshot(cellStyleIndexes, fontIndexes, new HashMap<>(dataFormats),
+            dataFormatStyleIndexes);
+    }
+
+    // 以 snapshot 的 index 對應到目前 workbook 中的樣式，之後查詢相同的樣式不再重新建立
+    synchronized void restore(Snapshot snapshot) {
+        snapshot.cellStyleIndexes.forEach((key, index) -> cellStyles.put(key, workbook.getCellStyleAt(index)));
+        snapshot.fontIndexes.forEach((key, index) -> fonts.put(key, workbook.getFontAt(index)));
+        dataFormats.putAll(snapshot.dataFormats);
+        snapshot.dataFormatStyleIndexes.forEach(
+            (format, index) -> dataFormatStyles.put(format, workbook.getCellStyleAt(index)));
+    }
+
+    /**
+     * 已解析樣式的不可變紀錄，供 SpreadsheetTemplate 在每次建立新的 workbook 時還原
+     */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(
+            Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final Map<StyleKey, Short> cellStyleIndexes;
+        private final Map<FontKey, Integer> fontIndexes;
+        private final Map<String, Short> dataFormats;
+        private final Map<String, Short> dataFormatStyleIndexes;
+
+        private Snapshot(
+            Map<StyleKey, Short> cellStyleIndexes, Map<FontKey, Integer> fontIndexes,
+            Map<String, Short> dataFormats, Map<String, Short> dataFormatStyleIndexes) {
+            this.cellStyleIndexes = Collections.unmodifiableMap(cellStyleIndexes);
+            this.fontIndexes = Collections.unmodifiableMap(fontIndexes);
+            this.dataFormats = Collections.unmodifiableMap(dataFormats);
+            this.dataFormatStyleIndexes = Collections.unmodifiableMap(dataFormatStyleIndexes);
+        }
+
+        int size() {
+            return cellStyleIndexes.size() + dataFormatStyleIndexes.size();
+        }
+    }
+
+    @Value
+    private static class FontKey {
+        String fontName;
+        int fontSize;
+        boolean bold;
+        short color;
+
+        static FontKey of(SpreadsheetFontStyle fontStyle) {
+            return new FontKey(fontStyle.getFontName(), fontStyle.getFontSize(), fontStyle.isBold(),
+                fontStyle.getColor().getIndex());
+        }
+    }
+
+    @Value
+    private static class StyleKey {
+        FontKey font;
+        VerticalAlignment vAlign;
+        HorizontalAlignment hAlign;
+        boolean wrapText;
+        ColorKey backGroundColor;
+        BorderStyle borderTop;
+        BorderStyle borderBottom;
+        BorderStyle borderLeft;
+        BorderStyle borderRight;
+        String dataFormat;
+
+        static StyleKey of(SpreadsheetStyle style, String defaultDataFormat) {
+            SpreadsheetBorderPosition position = style.getBorderPosition();
+            BorderStyle border = borderConverter(style.getBorderStyle());
+            return new StyleKey(
+                style.getFontStyle() == null ? null : FontKey.of(style.getFontStyle()),
+                verticalAlignmentTypeConverter(style.getVAlign()),
+                horizontalAlignmentTypeConverter(style.getHAlign()),
+                style.isWrapText(),
+                ColorKey.of(style.getBackGroundColor()),
+                position.isTop() ? border : BorderStyle.NONE,
+                position.isBottom() ? border : BorderStyle.NONE,
+                position.isLeft() ? border : BorderStyle.NONE,
+                position.isRight() ? border : BorderStyle.NONE,
+                style.getDataFormat() != null ? style.getDataFormat() : defaultDataFormat);
+        }
+    }
+
+    @Value
+    private static class BorderedKey {
+        short baseIndex;
+        BorderStyle borderTop;
+        BorderStyle borderBottom;
+        BorderStyle borderLeft;
+        BorderStyle borderRight;
+    }
+
+    private static final class ColorKey {
+        private final String argb;
+        private final XSSFColor color;
+
+        private ColorKey(String argb, XSSFColor color) {
+            this.argb = argb;
+            this.color = color;
+        }
+
+        static ColorKey of(XSSFColor color) {
+            if (color == null) {
+                return null;
+            }
+            String argb = color.getARGBHex();
+            if (argb == null) {
+                argb = color.isIndexed() ? "indexed:" + color.getIndex()
+                    : "theme:" + color.getTheme() + ":" + color.getTint();
+            }
+            return new ColorKey(argb, color);
+        }
+
+        // 同色的 XSSFColor 物件不一定 equals，因此只比對顏色值
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ColorKey && argb.equals(((ColorKey) o).argb);
+        }
+
+        @Override
+        public int hashCode() {
+            return argb.hashCode();
+        }
+    }
+
+    private static VerticalAlignment verticalAlignmentTypeConverter(
+        TpVerticalAlignment verticalAlignment) {
+        switch (verticalAlignment) {
+            case TOP:
+                return VerticalAlignment.TOP;
+            case CENTER:
+                return VerticalAlignment.CENTER;
+            case BOTTOM:
+            default:
+                return VerticalAlignment.BOTTOM;
+        }
+    }
+
+    private static HorizontalAlignment horizontalAlignmentTypeConverter(
+        TpHorizontalAlignment horizontalAlignment) {
+        switch (horizontalAlignment) {
+            case LEFT:
+                return HorizontalAlignment.LEFT;
+            case RIGHT:
+                return HorizontalAlignment.RIGHT;
+            case CENTER:
+                return HorizontalAlignment.CENTER;
+            case JUSTIFY:
+                return HorizontalAlignment.JUSTIFY;
+            case FILL:
+                return HorizontalAlignment.FILL;
+            case GENERAL:
+            default:
+                return HorizontalAlignment.GENERAL;
+        }
+    }
+
+    private static BorderStyle borderConverter(TpBorderStyle tpBorderStyle) {
+        switch (tpBorderStyle) {
+            case THIN:
+                return BorderStyle.THIN;
+            case MEDIUM:
+                return BorderStyle.MEDIUM;
+            case THICK:
+                return BorderStyle.THICK;
+            case DOUBLE:
+                return BorderStyle.DOUBLE;
+            case NONE:
+            default:
+                return BorderStyle.NONE;
+        }
+    }
+}
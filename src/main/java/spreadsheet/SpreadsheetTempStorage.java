@@ -0,0 +1,42 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.util.FileSystemUtils;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * SXSSF 工作表暫存檔的存放設定。
+ * SXSSF 會把超出 rowAccessWindowSize 的列寫入暫存檔，檔案大小約為未壓縮的 sheet XML，
+ * ExcelSpreadsheet 會在 close 時刪除。
+ */
+@Builder
+@Getter
+public class SpreadsheetTempStorage {
+
+    public static final SpreadsheetTempStorage DEFAULT = SpreadsheetTempStorage.builder().build();
+
+    // 暫存檔目錄，null 時使用 POI 預設位置 (java.io.tmpdir 下的 poifiles)
+    private final Path directory;
+    // 以 gzip 壓縮暫存檔，磁碟用量約為 1/10，但寫入與匯出時需額外的 CPU
+    private final boolean compress;
+    // 建立 workbook 前暫存目錄至少需有的可用空間，0 表示不檢查
+    private final long minFreeBytes;
+
+    Path resolveDirectory() {
+        return directory != null ? directory : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    // 建立暫存目錄並檢查可用空間，空間不足時拋出 InternalServerErrorException
+    void prepare() {
+        if (directory != null) {
+            FileSystemUtils.createDirsIfNotExist(directory);
+        }
+        if (minFreeBytes > 0) {
+            FileSystemUtils.hasEnoughSpaceToSave(resolveDirectory(), minFreeBytes);
+        }
+    }
+}
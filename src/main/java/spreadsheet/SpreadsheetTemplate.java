@@ -0,0 +1,235 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.AreaReference;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * 已解析的範本快照：範本內容 (含預先建立的樣式)、樣式表的對應與單一儲存格的名稱。
+ * 只讀取範本檔案，不會修改原檔案；每次 newSpreadsheet 都從記憶體中的內容建立獨立的 workbook。
+ * POI 無法複製已解析的 workbook，解析 (解壓縮與 XML 解析) 約佔小型報表匯出時間的兩成，
+ * 因此指定 executor 時會在背景預先解析 preparedWorkbooks 份，newSpreadsheet 取用後再補足，
+ * 沒有預先解析好的 workbook 時才在呼叫的執行緒上解析。
+ */
+public final class SpreadsheetTemplate {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpreadsheetTemplate.class);
+
+    private final Path path;
+    private final long lastModified;
+    private final long fileSize;
+    private final byte[] content;
+    private final List<String> sheetNames;
+    // 名稱 -> 參照的儲存格，只包含參照單一儲存格的名稱
+    private final Map<String, CellReference> namedCells;
+    private final SpreadsheetStyleRegistry.Snapshot styles;
+    // 預先解析的份數，executor 為 null 時為 0
+    private final int preparedWorkbooks;
+    private final Executor executor;
+    // 預先解析好、尚未取用的 workbook
+    private final Queue<XSSFWorkbook> prepared = new ConcurrentLinkedQueue<>();
+    // 已交給 executor 尚未完成的解析數
+    private final AtomicInteger preparing = new AtomicInteger();
+    // 已從快取移除，不再預先解析
+    private volatile boolean discarded;
+
+    private SpreadsheetTemplate(
+        Path path, BasicFileAttributes attributes, byte[] content,
+        List<String> sheetNames, Map<String, CellReference> namedCells,
+        SpreadsheetStyleRegistry.Snapshot styles, int preparedWorkbooks, Executor executor) {
+        this.path = path;
+        this.lastModified = attributes.lastModifiedTime().toMillis();
+        this.fileSize = attributes.size();
+        this.content = content;
+        this.sheetNames = Collections.unmodifiableList(sheetNames);
+        this.namedCells = Collections.unmodifiableMap(namedCells);
+        this.styles = styles;
+        this.preparedWorkbooks = executor == null ? 0 : preparedWorkbooks;
+        this.executor = executor;
+    }
+
+    /**
+     * @param preloadStyles 預先在範本中建立的樣式，之後的 workbook 查詢這些樣式時不需再建立
+     */
+    public static SpreadsheetTemplate load(Path path, List<SpreadsheetStyle> preloadStyles) {
+        return load(path, preloadStyles, 0, null);
+    }
+
+    /**
+     * @param preparedWorkbooks 以 executor 預先解析的 workbook 份數，每份約佔範本解壓縮後 XML 數倍的記憶體
+     * @param executor          執行預先解析，null 時不預先解析
+     */
+    public static SpreadsheetTemplate load(
+        Path path, List<SpreadsheetStyle> preloadStyles, int preparedWorkbooks, Executor executor) {
+        SpreadsheetTemplate template;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            byte[] content = Files.readAllBytes(path);
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
+                SpreadsheetStyleRegistry.Snapshot styles = SpreadsheetStyleRegistry.Snapshot.EMPTY;
+                if (!preloadStyles.isEmpty()) {
+                    SpreadsheetStyleRegistry registry = new SpreadsheetStyleRegistry(workbook);
+                    for (SpreadsheetStyle style : preloadStyles) {
+                        registry.getCellStyle(style);
+                    }
+                    styles = registry.snapshot();
+                    ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+                    workbook.write(out);
+                    content = out.toByteArray();
+                }
+                List<String> sheetNames = new ArrayList<>();
+                for (Sheet sheet : workbook) {
+                    sheetNames.add(sheet.getSheetName());
+                }
+                template = new SpreadsheetTemplate(path, attributes, content, sheetNames,
+                    resolveNamedCells(workbook), styles, preparedWorkbooks, executor);
+            }
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+        template.prepare();
+        return template;
+    }
+
+    private static Map<String, CellReference> resolveNamedCells(XSSFWorkbook workbook) {
+        Map<String, CellReference> namedCells = new HashMap<>();
+        for (Name name : workbook.getAllNames()) {
+            String formula = name.getRefersToFormula();
+            if (name.isFunctionName() || formula == null || !AreaReference.isContiguous(formula)) {
+                continue;
+            }
+            try {
+                AreaReference area = new AreaReference(formula, SpreadsheetVersion.EXCEL2007);
+                if (area.isSingleCell()) {
+                    namedCells.putIfAbsent(name.getNameName(), area.getFirstCell());
+                }
+            } catch (IllegalArgumentException ex) {
+                // #REF! 等無法解析的參照
+            }
+        }
+        return namedCells;
+    }
+
+    public ExcelSpreadsheet newSpreadsheet() {
+        return newSpreadsheet(ExcelSpreadsheet.ExcelType.SXSS);
+    }
+
+    public ExcelSpreadsheet newSpreadsheet(ExcelSpreadsheet.ExcelType excelType) {
+        XSSFWorkbook workbook = prepared.poll();
+        if (workbook == null) {
+            workbook = parse();
+        }
+        prepare();
+        ExcelSpreadsheet spreadsheet = new ExcelSpreadsheet(workbook, excelType);
+        spreadsheet.getStyleRegistry().restore(styles);
+        return spreadsheet;
+    }
+
+    private XSSFWorkbook parse() {
+        try {
+            return new XSSFWorkbook(new ByteArrayInputStream(content));
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    // 補足預先解析的 workbook，已排入但尚未完成的也計入
+    private void prepare() {
+        while (!discarded) {
+            int pending = preparing.get();
+            if (prepared.size() + pending >= preparedWorkbooks) {
+                return;
+            }
+            if (!preparing.compareAndSet(pending, pending + 1)) {
+                continue;
+            }
+            try {
+                executor.execute(this::prepareOne);
+            } catch (RejectedExecutionException ex) {
+                preparing.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void prepareOne() {
+        try {
+            XSSFWorkbook workbook = parse();
+            if (!discarded) {
+                prepared.add(workbook);
+            }
+            if (discarded) {
+                prepared.clear();
+            }
+        } catch (RuntimeException ex) {
+            // 取用時會改在呼叫的執行緒上解析並拋出錯誤
+            LOGGER.warn("prepare template workbook failed, {}", path, ex);
+        } finally {
+            preparing.decrementAndGet();
+        }
+    }
+
+    // 從快取移除時呼叫，釋放預先解析的 workbook，之後的 newSpreadsheet 只在呼叫的執行緒上解析
+    void discard() {
+        discarded = true;
+        prepared.clear();
+    }
+
+    // 檔案的修改時間或大小與載入時不同
+    boolean isModified(BasicFileAttributes attributes) {
+        return attributes.lastModifiedTime().toMillis() != lastModified || attributes.size() != fileSize;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public List<String> getSheetNames() {
+        return sheetNames;
+    }
+
+    // 沒有此名稱或名稱不是參照單一儲存格時回傳 null
+    public CellReference getNamedCell(String name) {
+        return namedCells.get(name);
+    }
+
+    public Map<String, CellReference> getNamedCells() {
+        return namedCells;
+    }
+
+    public int getContentLength() {
+        return content.length;
+    }
+
+    public int getPreloadedStyleCount() {
+        return styles.size();
+    }
+
+    public int getPreparedWorkbookCount() {
+        return prepared.size();
+    }
+}
@@ -0,0 +1,143 @@
+package com.tp.asset_ap.spreadsheet;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 範本快取，每個範本檔只解析一次，之後由 SpreadsheetTemplate.newSpreadsheet 建立可寫入的 ExcelSpreadsheet。
+ * 依範本內容的總大小以 LRU 淘汰；每次取用時比對檔案的修改時間與大小，範本更新後會重新載入。
+ * 單一範本大於 maxBytes 時不放入快取，每次重新載入。
+ * 指定 executor 時，快取中的每個範本會在背景預先解析 preparedWorkbooks 份 workbook，
+ * maxBytes 只計算範本內容，不包含預先解析的 workbook。
+ */
+public class SpreadsheetTemplateCache {
+
+    private final long maxBytes;
+    private final List<SpreadsheetStyle> preloadStyles;
+    private final int preparedWorkbooks;
+    private final Executor executor;
+    // access order，第一個為最久未使用
+    private final LinkedHashMap<Path, SpreadsheetTemplate> templates = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    private long hitCount;
+    private long loadCount;
+
+    /**
+     * @param preloadStyles 預先在每個範本中建立的樣式，例如 ExcelSpreadsheet.buildHeaderStyle()
+     */
+    public SpreadsheetTemplateCache(long maxBytes, SpreadsheetStyle... preloadStyles) {
+        this(maxBytes, 0, null, preloadStyles);
+    }
+
+    /**
+     * @param preparedWorkbooks 每個範本預先解析的 workbook 份數
+     * @param executor          執行預先解析，null 時不預先解析
+     */
+    public SpreadsheetTemplateCache(
+        long maxBytes, int preparedWorkbooks, Executor executor,
+        SpreadsheetStyle... preloadStyles) {
+        this.maxBytes = maxBytes;
+        this.preparedWorkbooks = preparedWorkbooks;
+        this.executor = executor;
+        this.preloadStyles = Collections.unmodifiableList(Arrays.asList(preloadStyles.clone()));
+    }
+
+    public SpreadsheetTemplate get(Path path) {
+        Path key = path.toAbsolutePath().normalize();
+        BasicFileAttributes attributes = readAttributes(key);
+        synchronized (this) {
+            SpreadsheetTemplate template = templates.get(key);
+            if (template != null && !template.isModified(attributes)) {
+                hitCount++;
+                return template;
+            }
+        }
+        // 在鎖外解析，載入大範本時不阻擋其他範本的取用；同時載入同一範本時以後放入的為準
+        SpreadsheetTemplate template = SpreadsheetTemplate.load(key, preloadStyles, preparedWorkbooks, executor);
+        synchronized (this) {
+            loadCount++;
+            remove(key);
+            if (template.getContentLength() <= maxBytes) {
+                templates.put(key, template);
+                cachedBytes += template.getContentLength();
+                evict();
+            } else {
+                template.discard();
+            }
+        }
+        return template;
+    }
+
+    public ExcelSpreadsheet newSpreadsheet(Path path) {
+        return get(path).newSpreadsheet();
+    }
+
+    public ExcelSpreadsheet newSpreadsheet(Path path, ExcelSpreadsheet.ExcelType excelType) {
+        return get(path).newSpreadsheet(excelType);
+    }
+
+    public synchronized void invalidate(Path path) {
+        remove(path.toAbsolutePath().normalize());
+    }
+
+    public synchronized void clear() {
+        for (SpreadsheetTemplate template : templates.values()) {
+            template.discard();
+        }
+        templates.clear();
+        cachedBytes = 0;
+    }
+
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    private void remove(Path key) {
+        SpreadsheetTemplate removed = templates.remove(key);
+        if (removed != null) {
+            cachedBytes -= removed.getContentLength();
+            removed.discard();
+        }
+    }
+
+    private void evict() {
+        Iterator<SpreadsheetTemplate> iterator = templates.values().iterator();
+        while (cachedBytes > maxBytes && iterator.hasNext()) {
+            SpreadsheetTemplate evicted = iterator.next();
+            cachedBytes -= evicted.getContentLength();
+            evicted.discard();
+            iterator.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return templates.size();
+    }
+
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getLoadCount() {
+        return loadCount;
+    }
+}
@@ -0,0 +1,167 @@
+package com.tp.asset_ap.spreadsheet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.apache.poi.xssf.streaming.GZIPSheetDataWriter;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * 依 SpreadsheetTempStorage 建立工作表暫存檔的 SXSSFWorkbook，並記住各暫存檔，
+ * 用來回報暫存檔大小與已寫入暫存檔的列數。
+ * 暫存檔在 dispose 前保留，因此可重複 write；第一次 write 後工作表的暫存檔已關閉，不能再新增列
+ */
+class StreamingWorkbook extends SXSSFWorkbook {
+
+    // 父類別建構子載入既有工作表時就會呼叫 createSheetDataWriter，此時子類別的欄位尚未設定，
+    // 因此建構期間的設定改由 ThreadLocal 傳遞
+    private static final ThreadLocal<SpreadsheetTempStorage> CONSTRUCTING = new ThreadLocal<>();
+    // SheetDataWriter 在父類別建構子中建立暫存檔，同樣需以 ThreadLocal 傳入目錄
+    private static final ThreadLocal<Path> WRITER_DIRECTORY = new ThreadLocal<>();
+
+    // 以下欄位不在宣告時給值，避免覆蓋父類別建構子中已建立的內容
+    private SpreadsheetTempStorage tempStorage;
+    private List<SheetDataWriter> writers;
+    private List<File> tempFiles;
+
+    StreamingWorkbook(int rowAccessWindowSize, SpreadsheetTempStorage tempStorage) {
+        super(null, rowAccessWindowSize, tempStorage.isCompress());
+        this.tempStorage = tempStorage;
+    }
+
+    private StreamingWorkbook(
+        XSSFWorkbook workbook, int rowAccessWindowSize,
+        SpreadsheetTempStorage tempStorage) {
+        super(workbook, rowAccessWindowSize, tempStorage.isCompress());
+        this.tempStorage = tempStorage;
+    }
+
+    // 以既有的 workbook 建立，其中每個工作表都會立即建立暫存檔
+    static StreamingWorkbook of(
+        XSSFWorkbook workbook, int rowAccessWindowSize,
+        SpreadsheetTempStorage tempStorage) {
+        CONSTRUCTING.set(tempStorage);
+        try {
+            return new StreamingWorkbook(workbook, rowAccessWindowSize, tempStorage);
+        } finally {
+            CONSTRUCTING.remove();
+        }
+    }
+
+    @Override
+    protected synchronized SheetDataWriter createSheetDataWriter() throws IOException {
+        if (writers == null) {
+            writers = new ArrayList<>();
+            tempFiles = new ArrayList<>();
+        }
+        SpreadsheetTempStorage storage = tempStorage != null ? tempStorage : CONSTRUCTING.get();
+        WRITER_DIRECTORY.set(storage == null ? null : storage.getDirectory());
+        SheetDataWriter writer;
+        File tempFile;
+        try {
+            if (isCompressTempFiles()) {
+                CompressedSheetDataWriter compressedWriter =
+                    new CompressedSheetDataWriter(getSharedStringSource());
+                writer = compressedWriter;
+                tempFile = compressedWriter.tempFile();
+            } else {
+                PlainSheetDataWriter plainWriter = new PlainSheetDataWriter(getSharedStringSource());
+                writer = plainWriter;
+                tempFile = plainWriter.tempFile();
+            }
+        } finally {
+            WRITER_DIRECTORY.remove();
+        }
+        writers.add(writer);
+        tempFiles.add(tempFile);
+        return writer;
+    }
+
+    private static File createTempFile(String suffix) throws IOException {
+        return Files.createTempFile(WRITER_DIRECTORY.get(), "poi-sxssf-sheet", suffix).toFile();
+    }
+
+    // 已刪除的暫存檔 (dispose 後) 大小為 0
+    synchronized long getTempFileBytes() {
+        long bytes = 0;
+        if (tempFiles != null) {
+            for (File tempFile : tempFiles) {
+                bytes += tempFile.length();
+            }
+        }
+        return bytes;
+    }
+
+    synchronized long getFlushedRowCount() {
+        long rows = 0;
+        if (writers != null) {
+            for (SheetDataWriter writer : writers) {
+                rows += writer.getNumberOfFlushedRows();
+            }
+        }
+        return rows;
+    }
+
+    private static final class PlainSheetDataWriter extends SheetDataWriter {
+
+        private boolean closed;
+
+        private PlainSheetDataWriter(SharedStringsTable sharedStringsTable) throws IOException {
+            super(sharedStringsTable);
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return WRITER_DIRECTORY.get() == null
+                ? super.createTempFile() : StreamingWorkbook.createTempFile(".xml");
+        }
+
+        private File tempFile() {
+            return getTempFile();
+        }
+
+        // SXSSFSheet 每次寫出 workbook 都會 close，第二次 close 時 flush 已關閉的串流會失敗
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
+    }
+
+    private static final class CompressedSheetDataWriter extends GZIPSheetDataWriter {
+
+        private boolean closed;
+
+        private CompressedSheetDataWriter(SharedStringsTable sharedStringsTable) throws IOException {
+            super(sharedStringsTable);
+        }
+
+        @Override
+        public File createTempFile() throws IOException {
+            return WRITER_DIRECTORY.get() == null
+                ? super.createTempFile() : StreamingWorkbook.createTempFile(".gz");
+        }
+
+        private File tempFile() {
+            return getTempFile();
+        }
+
+        // 同 PlainSheetDataWriter.close
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                super.close();
+            }
+        }
+    }
+}
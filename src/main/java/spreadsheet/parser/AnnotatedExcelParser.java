@@ -0,0 +1,82 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.exception.BadRequestException;
+
+import java.util.BitSet;
+
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * 依 R 的 @ExcelImportColumn 驗證與轉換各列，新增匯入類型時不需另外撰寫 parser：
+ * <pre>
+ * AnnotatedExcelParser&lt;AssetImportBO&gt; parser =
+ *     new AnnotatedExcelParser&lt;&gt;(AssetImportBO.class, ERROR_CELL_INDEX).stopAtEmptyColumn(0);
+ * parser.parseStreaming(file, 0);
+ * </pre>
+ * 串流讀取時只載入有綁定的欄位。
+ */
+public class AnnotatedExcelParser<R> extends ExcelRowParserTemplate<R> {
+
+    private final ExcelImportBinder<R> binder;
+    private final int errorCellIndex;
+    private final BitSet columnProjection;
+    private int endOfDataColIndex = -1;
+
+    public AnnotatedExcelParser(Class<R> type, int errorCellIndex) {
+        this.binder = ExcelImportBinder.of(type);
+        this.errorCellIndex = errorCellIndex;
+        this.columnProjection = binder.getColumnProjection();
+    }
+
+    // 此欄為空白 (或沒有此列) 時視為資料結束，未設定時讀到最後一列並略過空白列
+    public AnnotatedExcelParser<R> stopAtEmptyColumn(int colIndex) {
+        this.endOfDataColIndex = colIndex;
+        columnProjection.set(colIndex);
+        return this;
+    }
+
+    @Override
+    protected boolean isEndOfData(Row row) {
+        if (endOfDataColIndex < 0) {
+            return false;
+        }
+        if (row == null) {
+            return true;
+        }
+        String value = convertCellValueToString(getCell(row, endOfDataColIndex));
+        return value == null || value.isEmpty();
+    }
+
+    @Override
+    protected boolean isSkipRow(Row row) {
+        return endOfDataColIndex < 0 && isRowEmpty(row);
+    }
+
+    @Override
+    protected int getErrorCellIndex() {
+        return errorCellIndex;
+    }
+
+    @Override
+    protected RowValidator getRowValidator() {
+        return binder.getValidator();
+    }
+
+    @Override
+    protected BitSet getColumnProjection() {
+        return columnProjection;
+    }
+
+    @Override
+    public void validRowData(Row row) throws BadRequestException {
+        String errMsg = validate(binder.getValidator(), row);
+        if (errMsg != null) {
+            throw new BadRequestException(errMsg);
+        }
+    }
+
+    @Override
+    protected R convertRowData(Row row) {
+        return binder.bind(this, row);
+    }
+}
@@ -0,0 +1,90 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在另一個執行緒上呼叫 delegate，讓寫入資料庫與解析下一批同時進行。
+ * 等待寫入的批次超過 maxPendingChunks 時 accept 會等待，heap 中最多保留 maxPendingChunks + 1 批資料。
+ * <pre>
+ * try (AsyncRowSink&lt;HardwareExcelRowBO&gt; sink = new AsyncRowSink&lt;&gt;(repository::batchInsert, 2)) {
+ *     parser.parseStreaming(file, 0, sink, 1000);
+ * }
+ * </pre>
+ */
+public class AsyncRowSink<R> implements RowSink<R>, Closeable {
+
+    private final RowSink<R> delegate;
+    private final ExecutorService writer;
+    private final Semaphore pendingChunks;
+    // delegate 第一次拋出的例外，之後的批次不再寫入
+    private volatile RuntimeException failure;
+
+    public AsyncRowSink(RowSink<R> delegate, int maxPendingChunks) {
+        this.delegate = delegate;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "excel-row-sink");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pendingChunks = new Semaphore(Math.max(1, maxPendingChunks));
+    }
+
+    @Override
+    public void accept(Map<Integer, R> chunk) {
+        checkFailure();
+        try {
+            pendingChunks.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(ex);
+        }
+        writer.execute(() -> {
+            try {
+                if (failure == null) {
+                    delegate.accept(chunk);
+                }
+            } catch (RuntimeException ex) {
+                failure = ex;
+            } finally {
+                pendingChunks.release();
+            }
+        });
+    }
+
+    // 等待所有批次寫入完成，寫入失敗時拋出 delegate 的例外
+    @Override
+    public void complete() {
+        writer.shutdown();
+        try {
+            while (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                checkFailure();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerErrorException(ex);
+        }
+        checkFailure();
+        delegate.complete();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // 未呼叫 complete 就關閉時 (解析失敗)，放棄尚未寫入的批次
+    @Override
+    public void close() {
+        if (!writer.isTerminated()) {
+            writer.shutdownNow();
+        }
+    }
+}
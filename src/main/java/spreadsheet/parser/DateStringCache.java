@@ -0,0 +1,131 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.util.TimeUtils;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 匯入時日期文字轉為毫秒的快取，同一次匯入中重複出現的日期只解析一次，驗證與轉換共用同一個結果。
+ * 1900 年以後的 yyyy/MM/dd、yyyy-MM-dd 與 yyyy-MM-ddTHH:mm:ss 以系統時區直接計算，其他文字交由 TimeUtils.toDate。
+ * 每種格式第一次出現時會與 TimeUtils.toDate 的結果比對，不同時該格式之後都改用 TimeUtils.toDate。
+ * 快取超過 maxEntries 筆後，新的文字不再加入快取。
+ */
+final class DateStringCache {
+
+    // 無法轉換為日期
+    static final long INVALID = Long.MIN_VALUE;
+
+    // '0' 為數字，其他字元需完全相同
+    private static final String[] SHAPES = {"0000/00/00", "0000-00-00", "0000-00-00T00:00:00"};
+    private static final byte UNVERIFIED = 0;
+    private static final byte TRUSTED = 1;
+    private static final byte REJECTED = 2;
+    // 早於此年份 (如 0000 年或 1582 年以前的儒略曆) 交由 TimeUtils.toDate
+    private static final int MIN_FAST_YEAR = 1900;
+
+    private final ConcurrentHashMap<String, Long> millis = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    // 各格式與 TimeUtils.toDate 的比對結果，平行解析時重複比對的結果相同
+    private final byte[] shapeStates = new byte[SHAPES.length];
+
+    DateStringCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    // 日期的 UTC 毫秒，無法轉換時為 INVALID
+    long toMillis(String text) {
+        Long cached = millis.get(text);
+        if (cached != null) {
+            return cached;
+        }
+        long value = parse(text);
+        if (millis.size() < maxEntries) {
+            millis.putIfAbsent(text, value);
+        }
+        return value;
+    }
+
+    private long parse(String text) {
+        int shape = shapeOf(text);
+        if (shape < 0 || shapeStates[shape] == REJECTED) {
+            return parseGeneral(text);
+        }
+        long value = parseFast(text);
+        if (value == INVALID) {
+            // 欄位超出範圍 (如 2024/02/30)、年份過早或位於時區轉換，依 TimeUtils.toDate 的規則
+            return parseGeneral(text);
+        }
+        if (shapeStates[shape] == UNVERIFIED) {
+            long general = parseGeneral(text);
+            shapeStates[shape] = general == value ? TRUSTED : REJECTED;
+            return general;
+        }
+        return value;
+    }
+
+    private static int shapeOf(String text) {
+        for (int shape = 0; shape < SHAPES.length; shape++) {
+            if (matches(text, SHAPES[shape])) {
+                return shape;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(String text, String shape) {
+        if (text.length() != shape.length()) {
+            return false;
+        }
+        for (int i = 0; i < shape.length(); i++) {
+            char expected = shape.charAt(i);
+            char actual = text.charAt(i);
+            if (expected == '0' ? actual < '0' || actual > '9' : actual != expected) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 各格式的年月日位置相同，有時間時位於第 11 個字元之後
+    private static long parseFast(String text) {
+        int year = digits(text, 0, 4);
+        if (year < MIN_FAST_YEAR) {
+            return INVALID;
+        }
+        boolean hasTime = text.length() > 10;
+        try {
+            LocalDateTime local = LocalDateTime.of(
+                year, digits(text, 5, 7), digits(text, 8, 10),
+                hasTime ? digits(text, 11, 13) : 0, hasTime ? digits(text, 14, 16) : 0,
+                hasTime ? digits(text, 17, 19) : 0);
+            ZoneId zone = ZoneId.systemDefault();
+            if (zone.getRules().getTransition(local) != null) {
+                return INVALID;
+            }
+            return local.atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeException ex) {
+            return INVALID;
+        }
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static long parseGeneral(String text) {
+        try {
+            Date date = TimeUtils.toDate(text);
+            return date == null ? INVALID : date.getTime();
+        } catch (RuntimeException ex) {
+            return INVALID;
+        }
+    }
+}
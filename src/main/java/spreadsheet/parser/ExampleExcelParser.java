@@ -1,7 +1,10 @@
 package com.tp.asset_ap.spreadsheet.parser;
 
 import com.tp.asset_ap.exception.BadRequestException;
+import com.tp.asset_ap.exception.InternalServerErrorException;
 import com.tp.asset_ap.model.ExcelExampleDataDTO;
+import com.tp.asset_ap.spreadsheet.ExcelRowBuffer;
+import com.tp.asset_ap.spreadsheet.ExcelStreamingReader;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -30,6 +33,29 @@ public class ExampleExcelParser {
         parseExcel(wb);
     }
 
+    // 以 SAX 串流讀取，不建立整份 XSSFWorkbook
+    public void parseStreaming(MultipartFile file) {
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file);
+             ExcelRowBuffer rowBuffer = new ExcelRowBuffer(reader.isDate1904())) {
+            // 遍歷每一個sheet
+            for (int sheetNum = 0; sheetNum < reader.getSheetNames().size(); sheetNum++) {
+                int[] rowCount = {0};
+                reader.readSheet(sheetNum, values -> {
+                    // 第一列為標題
+                    if (rowCount[0]++ == 0) {
+                        return;
+                    }
+                    dataList.add(convertRowToPDTO(rowBuffer.load(values)));
+                });
+                if (rowCount[0] == 0) {
+                    throw new BadRequestException("解析Excel失敗");
+                }
+            }
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
     public List<ExcelExampleDataDTO> getDataList() {
         return dataList;
     }
@@ -0,0 +1,290 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+import com.tp.asset_ap.spreadsheet.ExcelColumn;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+
+/**
+ * 以 BO class 為單位快取 @ExcelImportColumn (或 @ExcelColumn) 的解析結果：設定欄位值的 MethodHandle、
+ * 各欄的轉換方式、由 annotation 產生的 RowValidator 與需要讀取的欄位，同一個 class 只會解析一次。
+ * 必填、整數與日期規則依 colIndex 順序產生，錯誤訊息的格式與 RowValidator 相同。
+ * 欄位包含父類別宣告的欄位。int 與 long (TIMESTAMP) 欄位以 convertCellValuesToInt / convertCellValuesToTimeStamp
+ * 整批轉換後直接設定，不建立 Integer 與 Long。
+ */
+public final class ExcelImportBinder<R> {
+
+    private static final ClassValue<ExcelImportBinder<?>> BINDERS = new ClassValue<ExcelImportBinder<?>>() {
+        @Override
+        protected ExcelImportBinder<?> computeValue(Class<?> type) {
+            return new ExcelImportBinder<>(type);
+        }
+    };
+
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INT_SETTER_TYPE = MethodType.methodType(void.class, Object.class, int.class);
+    private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class, Object.class, long.class);
+
+    private final Class<R> type;
+    private final MethodHandle constructor;
+    private final Column[] columns;
+    // 逐欄以 convertCellValueTo* 轉換的欄位
+    private final Column[] objectColumns;
+    private final int[] intColumns;
+    private final MethodHandle[] intSetters;
+    private final int[] timeStampColumns;
+    private final MethodHandle[] timeStampSetters;
+    // bind 可能平行執行，整批轉換的暫存陣列各執行緒各自一份
+    private final ThreadLocal<PrimitiveValues> primitiveValues;
+    private final RowValidator validator;
+    private final BitSet columnProjection = new BitSet();
+
+    private ExcelImportBinder(Class<R> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Constructor<R> noArgs = type.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(noArgs).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            throw new InternalServerErrorException("無法建立 " + type.getName() + "，需有無參數的建構子", ex);
+        }
+        List<Column> list = new ArrayList<>();
+        // 包含父類別宣告的欄位
+        for (Class<?> declaring = type; declaring != null && declaring != Object.class;
+             declaring = declaring.getSuperclass()) {
+            for (Field field : declaring.getDeclaredFields()) {
+                Column column = createColumn(lookup, field);
+                if (column != null) {
+                    list.add(column);
+                }
+            }
+        }
+        list.sort(Comparator.comparingInt(column -> column.colIndex));
+        this.columns = list.toArray(new Column[0]);
+
+        List<Column> objects = new ArrayList<>();
+        List<Column> ints = new ArrayList<>();
+        List<Column> timeStamps = new ArrayList<>();
+        for (Column column : columns) {
+            if (column.primitive && column.type == ExcelImportType.INTEGER) {
+                ints.add(column);
+            } else if (column.primitive && column.type == ExcelImportType.TIMESTAMP) {
+                timeStamps.add(column);
+            } else {
+                objects.add(column);
+            }
+        }
+        this.objectColumns = objects.toArray(new Column[0]);
+        this.intColumns = ints.stream().mapToInt(column -> column.colIndex).toArray();
+        this.intSetters = ints.stream().map(column -> column.fieldSetter.asType(INT_SETTER_TYPE))
+            .toArray(MethodHandle[]::new);
+        this.timeStampColumns = timeStamps.stream().mapToInt(column -> column.colIndex).toArray();
+        this.timeStampSetters = timeStamps.stream().map(column -> column.fieldSetter.asType(LONG_SETTER_TYPE))
+            .toArray(MethodHandle[]::new);
+        this.primitiveValues = ThreadLocal.withInitial(
+            () -> new PrimitiveValues(intColumns.length, timeStampColumns.length));
+
+        RowValidator.Builder builder = RowValidator.builder();
+        for (Column column : columns) {
+            columnProjection.set(column.colIndex);
+            if (!column.requiredNameKey.isEmpty()) {
+                builder.required(column.colIndex, column.requiredNameKey);
+            }
+            if (column.type == ExcelImportType.INTEGER) {
+                builder.integer(column.colIndex);
+            } else if (column.type == ExcelImportType.TIMESTAMP) {
+                builder.date(column.colIndex);
+            }
+        }
+        this.validator = builder.build();
+    }
+
+    private Column createColumn(MethodHandles.Lookup lookup, Field field) {
+        ExcelImportColumn importColumn = field.getAnnotation(ExcelImportColumn.class);
+        ExcelColumn exportColumn = field.getAnnotation(ExcelColumn.class);
+        if (importColumn == null && exportColumn == null) {
+            return null;
+        }
+        try {
+            field.setAccessible(true);
+            MethodHandle setter = lookup.unreflectSetter(field);
+            if (importColumn == null) {
+                return new Column(field, exportColumn.colIndex(), ExcelImportType.AUTO, "", "", setter);
+            }
+            return new Column(field, importColumn.colIndex(), importColumn.type(),
+                importColumn.requiredNameKey(), importColumn.trueValue(), setter);
+        } catch (IllegalAccessException | RuntimeException ex) {
+            throw new InternalServerErrorException(
+                "無法存取欄位 " + type.getName() + "." + field.getName(), ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <R> ExcelImportBinder<R> of(Class<R> type) {
+        return (ExcelImportBinder<R>) BINDERS.get(type);
+    }
+
+    // 以 parser 的 convertCellValueTo* 轉換各欄並設定到新的 R
+    public R bind(ExcelParserTemplate<?> parser, Row row) {
+        try {
+            Object target = (Object) constructor.invokeExact();
+            for (Column column : objectColumns) {
+                Object value = column.convert(parser, parser.getCell(row, column.colIndex));
+                if (value != null || !column.primitive) {
+                    column.setter.invokeExact(target, value);
+                }
+            }
+            if (intColumns.length > 0 || timeStampColumns.length > 0) {
+                bindPrimitives(parser, row, target);
+            }
+            return type.cast(target);
+        } catch (RuntimeException | Error ex) {
+            throw ex;
+        } catch (Throwable ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    // 沒有值的 int 與 long 欄位維持預設值
+    private void bindPrimitives(ExcelParserTemplate<?> parser, Row row, Object target) throws Throwable {
+        PrimitiveValues values = primitiveValues.get();
+        parser.convertCellValuesToInt(row, intColumns, values.ints, values.nullColumns);
+        for (int i = 0; i < intColumns.length; i++) {
+            if (!values.nullColumns.get(i)) {
+                intSetters[i].invokeExact(target, values.ints[i]);
+            }
+        }
+        parser.convertCellValuesToTimeStamp(row, timeStampColumns, values.longs, values.nullColumns);
+        for (int i = 0; i < timeStampColumns.length; i++) {
+            if (!values.nullColumns.get(i)) {
+                timeStampSetters[i].invokeExact(target, values.longs[i]);
+            }
+        }
+    }
+
+    public Class<R> getType() {
+        return type;
+    }
+
+    // 由 annotation 的 requiredNameKey 與轉換方式產生的驗證規則
+    public RowValidator getValidator() {
+        return validator;
+    }
+
+    // 有綁定的欄位 index
+    public BitSet getColumnProjection() {
+        return (BitSet) columnProjection.clone();
+    }
+
+    private static final class Column {
+        private final int colIndex;
+        private final ExcelImportType type;
+        private final String requiredNameKey;
+        private final String trueValue;
+        private final MethodHandle fieldSetter;
+        private final MethodHandle setter;
+        private final boolean primitive;
+
+        private Column(
+            Field field, int colIndex, ExcelImportType type, String requiredNameKey,
+            String trueValue, MethodHandle fieldSetter) {
+            this.colIndex = colIndex;
+            this.type = type == ExcelImportType.AUTO ? resolveType(field) : type;
+            this.requiredNameKey = requiredNameKey;
+            this.trueValue = trueValue;
+            this.fieldSetter = fieldSetter;
+            this.setter = fieldSetter.asType(SETTER_TYPE);
+            this.primitive = field.getType().isPrimitive();
+            if (!MethodType.methodType(field.getType()).wrap().returnType().isAssignableFrom(valueType(this.type))) {
+                throw new InternalServerErrorException("匯入欄位 " + field.getDeclaringClass().getName() + "."
+                    + field.getName() + " 的型別不符合轉換方式 " + this.type);
+            }
+        }
+
+        private static Class<?> valueType(ExcelImportType type) {
+            switch (type) {
+                case INTEGER:
+                    return Integer.class;
+                case TIMESTAMP:
+                    return Long.class;
+                case BOOLEAN:
+                    return Boolean.class;
+                case STRING:
+                default:
+                    return String.class;
+            }
+        }
+
+        private static ExcelImportType resolveType(Field field) {
+            Class<?> fieldType = field.getType();
+            if (fieldType == Integer.class || fieldType == int.class) {
+                return ExcelImportType.INTEGER;
+            }
+            if (fieldType == Long.class || fieldType == long.class) {
+                // Long 可能是日期或數字，不自動加上日期規則
+                throw new InternalServerErrorException("匯入欄位 " + field.getDeclaringClass().getName() + "."
+                    + field.getName() + " 為 Long，需以 @ExcelImportColumn 指定 type 為 TIMESTAMP");
+            }
+            if (fieldType == Boolean.class || fieldType == boolean.class) {
+                return ExcelImportType.BOOLEAN;
+            }
+            if (fieldType == String.class) {
+                return ExcelImportType.STRING;
+            }
+            throw new InternalServerErrorException(
+                "不支援的匯入欄位型別 " + field.getDeclaringClass().getName() + "." + field.getName());
+        }
+
+        private Object convert(ExcelParserTemplate<?> parser, Cell cell) {
+            switch (type) {
+                case INTEGER:
+                    return parser.convertCellValueToInteger(cell);
+                case TIMESTAMP:
+                    return parser.convertCellValueToTimeStamp(cell);
+                case BOOLEAN:
+                    return convertToBoolean(parser, cell);
+                case STRING:
+                default:
+                    return parser.convertCellValueToString(cell);
+            }
+        }
+
+        private Boolean convertToBoolean(ExcelParserTemplate<?> parser, Cell cell) {
+            if (!trueValue.isEmpty()) {
+                return trueValue.equals(parser.convertCellValueToString(cell));
+            }
+            if (parser.cellIsEmpty(cell)) {
+                return null;
+            }
+            if (cell.getCellType() == CellType.BOOLEAN) {
+                return cell.getBooleanCellValue();
+            }
+            return Boolean.parseBoolean(parser.convertCellValueToString(cell));
+        }
+    }
+
+    private static final class PrimitiveValues {
+        private final int[] ints;
+        private final long[] longs;
+        private final BitSet nullColumns = new BitSet();
+
+        private PrimitiveValues(int intCount, int longCount) {
+            this.ints = new int[intCount];
+            this.longs = new long[longCount];
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 匯入時由第 colIndex 欄讀取此欄位，由 ExcelImportBinder 轉換並設定。
+ * 未標註此 annotation 但有 @ExcelColumn 的欄位，以 @ExcelColumn 的 colIndex 讀取，轉換方式為 AUTO。
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(value = { ElementType.FIELD })
+public @interface ExcelImportColumn {
+
+    int colIndex();
+
+    ExcelImportType type() default ExcelImportType.AUTO;
+
+    // 必填欄位在錯誤訊息中的名稱 (語系 key)，空字串表示非必填
+    String requiredNameKey() default "";
+
+    // type 為 BOOLEAN 時，儲存格文字等於此值為 true，例如 "公規資產"；空字串時依儲存格的布林值或 "true"
+    String trueValue() default "";
+}
@@ -0,0 +1,16 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+/**
+ * ExcelImportColumn 的轉換方式，對應 ExcelParserTemplate 的 convertCellValueTo* 方法
+ */
+public enum ExcelImportType {
+    // 依欄位型別：String 為 STRING、Integer 為 INTEGER、Boolean 為 BOOLEAN；Long 需明確指定 TIMESTAMP
+    AUTO,
+    // convertCellValueToString
+    STRING,
+    // convertCellValueToInteger，有值時需為整數
+    INTEGER,
+    // convertCellValueToTimeStamp，日期的 UTC 毫秒，有值時需為日期
+    TIMESTAMP,
+    BOOLEAN
+}
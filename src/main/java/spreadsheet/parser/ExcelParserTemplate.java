@@ -2,34 +2,57 @@ package com.tp.asset_ap.spreadsheet.parser;
 
 import com.tp.asset_ap.exception.BadRequestException;
 import com.tp.asset_ap.model.dto.excel.ExcelSheetDTO;
+import com.tp.asset_ap.spreadsheet.SpreadsheetMetrics;
 import com.tp.asset_ap.util.TPStringUtils;
-import com.tp.asset_ap.util.TimeUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.text.DecimalFormat;
 import java.text.ParseException;
-import java.time.ZoneOffset;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TimeZone;
 
 import org.apache.commons.lang3.EnumUtils;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCell;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.multipart.MultipartFile;
 
 public abstract class ExcelParserTemplate<T> {
 
+    // 轉換結果沒有值，整數與日期的毫秒都不會是此值
+    private static final long NO_VALUE = Long.MIN_VALUE;
+    private static final long DAY_MILLIS = 86_400_000L;
+    private static final long HALF_DAY_MILLIS = DAY_MILLIS / 2;
+    private static final double MAX_WHOLE_NUMBER = 1e15;
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0d);
+    private static final ThreadLocal<DecimalFormat> NUMBER_FORMAT =
+        ThreadLocal.withInitial(() -> new DecimalFormat("0"));
+    // 一次匯入中快取的日期文字種類上限
+    private static final int MAX_DATE_STRINGS = 4096;
+
     protected final String ASSET_CLASS = "公規資產";
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     protected final ExcelSheetDTO<T> sheetData = new ExcelSheetDTO<>();
+    protected SpreadsheetMetrics metrics = SpreadsheetMetrics.NOOP;
+    // 循序解析時目前 workbook 的日期樣式判斷
+    private volatile DateStyles dateStyles;
+    // 平行解析期間各 ExcelRowBuffer 各自的日期樣式判斷，以 identity 比對；解析結束後清除，不保留 buffer
+    private volatile DateStyles[] bufferDateStyles;
+    private final DateStringCache dateStrings = new DateStringCache(MAX_DATE_STRINGS);
 
     public void parse(MultipartFile file, int sheetNum)
         throws InvocationTargetException, IllegalAccessException, ParseException {
@@ -46,6 +69,11 @@ public abstract class ExcelParserTemplate<T> {
         return sheetData;
     }
 
+    // 解析的列數與驗證失敗數於解析結束時回報，null 表示不量測
+    public void setMetrics(SpreadsheetMetrics metrics) {
+        this.metrics = metrics == null ? SpreadsheetMetrics.NOOP : metrics;
+    }
+
     private Workbook getWorkbook(MultipartFile file) {
         Workbook wb;
         if (file == null) {
@@ -88,9 +116,7 @@ public abstract class ExcelParserTemplate<T> {
         String returnValue = null;
         switch (cell.getCellType()) {
             case NUMERIC:
-                Double doubleValue = cell.getNumericCellValue();
-                DecimalFormat df = new DecimalFormat("0");
-                returnValue = df.format(doubleValue);
+                returnValue = formatNumber(cell.getNumericCellValue());
                 break;
             case STRING:
                 returnValue = cell.getStringCellValue();
@@ -102,46 +128,242 @@ public abstract class ExcelParserTemplate<T> {
     }
 
     protected Integer convertCellValueToInteger(Cell cell) {
+        long value = toIntValue(cell);
+        return value == NO_VALUE ? null : Integer.valueOf((int) value);
+    }
+
+    // 非日期格式的數值、無法轉換的文字與其他型別的儲存格為 null
+    protected Long convertCellValueToTimeStamp(Cell cell) {
+        long value = toTimeStampValue(cell);
+        return value == NO_VALUE ? null : Long.valueOf(value);
+    }
+
+    /**
+     * 將 colIndexes 各欄依 convertCellValueToInteger 的規則轉為 int 存入 values 的相同位置，不建立 Integer
+     *
+     * @param nullColumns 先清除後標記沒有值的欄位，第 i 個 bit 對應 colIndexes[i]，這些欄位的 values 為 0
+     */
+    protected void convertCellValuesToInt(Row row, int[] colIndexes, int[] values, BitSet nullColumns) {
+        nullColumns.clear();
+        for (int i = 0; i < colIndexes.length; i++) {
+            long value = toIntValue(getCell(row, colIndexes[i]));
+            if (value == NO_VALUE) {
+                nullColumns.set(i);
+                values[i] = 0;
+            } else {
+                values[i] = (int) value;
+            }
+        }
+    }
+
+    /**
+     * 將 colIndexes 各欄依 convertCellValueToTimeStamp 的規則轉為 UTC 毫秒存入 values 的相同位置，不建立 Long
+     *
+     * @param nullColumns 先清除後標記沒有值的欄位，第 i 個 bit 對應 colIndexes[i]，這些欄位的 values 為 0
+     */
+    protected void convertCellValuesToTimeStamp(Row row, int[] colIndexes, long[] values, BitSet nullColumns) {
+        nullColumns.clear();
+        for (int i = 0; i < colIndexes.length; i++) {
+            long value = toTimeStampValue(getCell(row, colIndexes[i]));
+            if (value == NO_VALUE) {
+                nullColumns.set(i);
+                values[i] = 0;
+            } else {
+                values[i] = value;
+            }
+        }
+    }
+
+    // 整數值直接以 Long.toString 轉換；小數、-0 與超過 15 位數的值與原本相同以 DecimalFormat("0") 格式化
+    private static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < MAX_WHOLE_NUMBER
+            && Double.doubleToRawLongBits(value) != NEGATIVE_ZERO_BITS) {
+            return Long.toString((long) value);
+        }
+        return NUMBER_FORMAT.get().format(value);
+    }
+
+    // NO_VALUE 表示沒有值
+    private long toIntValue(Cell cell) {
         if (cellIsEmpty(cell)) {
-            return null;
+            return NO_VALUE;
         }
-        Integer returnValue = null;
         switch (cell.getCellType()) {
             case NUMERIC:
-                Double value = cell.getNumericCellValue();
-                returnValue = value.intValue();
-                break;
+                return (int) cell.getNumericCellValue();
             case STRING:
-                returnValue = TPStringUtils.toInteger(cell.getStringCellValue());
-                break;
+                Integer value = TPStringUtils.toInteger(cell.getStringCellValue());
+                return value == null ? NO_VALUE : value;
+            default:
+                return NO_VALUE;
         }
-        return returnValue;
     }
 
-    protected Long convertCellValueToTimeStamp(Cell cell) {
+    // NO_VALUE 表示沒有值
+    private long toTimeStampValue(Cell cell) {
         if (cellIsEmpty(cell)) {
-            return null;
+            return NO_VALUE;
         }
-        Date date = null;
         switch (cell.getCellType()) {
             case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    date = cell.getDateCellValue();
-                }
-                break;
+                return toDateMillis(cell);
             case STRING:
-                date = TimeUtils.toDate(cell.getStringCellValue());
-                break;
+                long millis = dateStrings.toMillis(cell.getStringCellValue());
+                return millis == DateStringCache.INVALID ? NO_VALUE : millis;
+            default:
+                return NO_VALUE;
+        }
+    }
+
+    // 與 DateUtil.isCellDateFormatted 加上 getDateCellValue 相同，樣式是否為日期格式依 workbook 快取
+    private long toDateMillis(Cell cell) {
+        if (!isDateFormatted(cell)) {
+            return NO_VALUE;
+        }
+        if (getDateStyles(cell.getSheet().getWorkbook()).serialDates) {
+            long millis = serialToMillis(cell.getNumericCellValue(), LocaleUtil.getUserTimeZone());
+            if (millis != NO_VALUE) {
+                return millis;
+            }
+        }
+        return cell.getDateCellValue().getTime();
+    }
+
+    // 數值儲存格的值與樣式是否為日期，與 DateUtil.isCellDateFormatted 相同
+    private boolean isDateFormatted(Cell cell) {
+        return DateUtil.isValidExcelDate(cell.getNumericCellValue())
+            && getDateStyles(cell.getSheet().getWorkbook()).isDate(styleIndex(cell));
+    }
+
+    private DateStyles getDateStyles(Workbook workbook) {
+        DateStyles styles = dateStyles;
+        if (styles != null && styles.workbook == workbook) {
+            return styles;
+        }
+        DateStyles[] perBuffer = bufferDateStyles;
+        if (perBuffer == null) {
+            styles = new DateStyles(workbook);
+            dateStyles = styles;
+            return styles;
+        }
+        // buffer 數量不超過 pool 的平行度，直接線性搜尋
+        for (DateStyles cached : perBuffer) {
+            if (cached.workbook == workbook) {
+                return cached;
+            }
+        }
+        return addBufferDateStyles(workbook);
+    }
+
+    private synchronized DateStyles addBufferDateStyles(Workbook workbook) {
+        DateStyles[] perBuffer = bufferDateStyles;
+        if (perBuffer == null) {
+            return new DateStyles(workbook);
+        }
+        for (DateStyles cached : perBuffer) {
+            if (cached.workbook == workbook) {
+                return cached;
+            }
+        }
+        DateStyles styles = new DateStyles(workbook);
+        DateStyles[] next = Arrays.copyOf(perBuffer, perBuffer.length + 1);
+        next[perBuffer.length] = styles;
+        bufferDateStyles = next;
+        return styles;
+    }
+
+    // ExcelRowParserTemplate.parseInParallel 開始與結束時呼叫
+    void startBufferDateStyles() {
+        bufferDateStyles = new DateStyles[0];
+    }
+
+    void clearBufferDateStyles() {
+        bufferDateStyles = null;
+    }
+
+    // 已快取日期樣式判斷的 buffer 數量
+    int getBufferDateStylesCount() {
+        DateStyles[] perBuffer = bufferDateStyles;
+        return perBuffer == null ? 0 : perBuffer.length;
+    }
+
+    // XSSFCell.getCellStyle 每次都會建立新的 XSSFCellStyle，直接讀取 s 屬性
+    private static int styleIndex(Cell cell) {
+        if (cell instanceof XSSFCell) {
+            CTCell ctCell = ((XSSFCell) cell).getCTCell();
+            return ctCell.isSetS() ? (int) ctCell.getS() : 0;
+        }
+        return cell.getCellStyle().getIndex() & 0xFFFF;
+    }
+
+    /**
+     * 1900 日期系統的序號轉為 zone 的當地時間，結果與 DateUtil.getJavaDate 相同。
+     * 前後 12 小時內有時區轉換 (夏令時間) 時回傳 NO_VALUE，由 DateUtil 以 Calendar 計算。
+     */
+    private static long serialToMillis(double serial, TimeZone zone) {
+        int wholeDays = (int) Math.floor(serial);
+        int millisInDay = (int) ((serial - wholeDays) * DAY_MILLIS + 0.5);
+        // 序號 1 為 1900-01-01，Excel 將 1900 年視為閏年，序號 61 起少算一天
+        long epochDay = wholeDays - (wholeDays < 61 ? 25568L : 25569L);
+        long localMillis = epochDay * DAY_MILLIS + millisInDay;
+        int offset = zone.getOffset(localMillis - zone.getOffset(localMillis));
+        long utcMillis = localMillis - offset;
+        if (zone.getOffset(utcMillis - HALF_DAY_MILLIS) != offset
+            || zone.getOffset(utcMillis + HALF_DAY_MILLIS) != offset) {
+            return NO_VALUE;
+        }
+        return utcMillis;
+    }
+
+    private static final class DateStyles {
+
+        private static final byte UNKNOWN = 0;
+        private static final byte DATE = 1;
+        private static final byte NOT_DATE = 2;
+
+        private final Workbook workbook;
+        // XSSF (含 ExcelRowBuffer 使用的 SXSSF) 且非 1904 日期系統時，日期直接由序號計算
+        private final boolean serialDates;
+        // 依樣式 index 記錄是否為日期格式，平行解析時重複判斷的結果相同
+        private final byte[] kinds;
+
+        private DateStyles(Workbook workbook) {
+            this.workbook = workbook;
+            XSSFWorkbook xssfWorkbook = workbook instanceof SXSSFWorkbook
+                ? ((SXSSFWorkbook) workbook).getXSSFWorkbook()
+                : workbook instanceof XSSFWorkbook ? (XSSFWorkbook) workbook : null;
+            this.serialDates = xssfWorkbook != null && !xssfWorkbook.isDate1904();
+            this.kinds = new byte[workbook.getNumCellStyles()];
+        }
+
+        private boolean isDate(int styleIndex) {
+            if (styleIndex >= kinds.length) {
+                return classify(styleIndex);
+            }
+            byte kind = kinds[styleIndex];
+            if (kind == UNKNOWN) {
+                kind = classify(styleIndex) ? DATE : NOT_DATE;
+                kinds[styleIndex] = kind;
+            }
+            return kind == DATE;
+        }
+
+        private boolean classify(int styleIndex) {
+            CellStyle style = workbook.getCellStyleAt(styleIndex);
+            return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
         }
-        return TimeUtils.toUTCMilliseconds(date.toInstant().atOffset(ZoneOffset.UTC));
     }
 
+    // 文字的檢查與 convertCellValueToTimeStamp 共用同一次解析的結果；數值需為日期格式，否則轉換結果為 null
     protected boolean isValidDateFormat(Cell cell) {
         if (cellIsEmpty(cell)) {
             return true;
         }
         if (cell.getCellType().equals(CellType.STRING)) {
-            return TimeUtils.isValidDateString(cell.getStringCellValue());
+            return dateStrings.toMillis(cell.getStringCellValue()) != DateStringCache.INVALID;
+        }
+        if (cell.getCellType().equals(CellType.NUMERIC)) {
+            return isDateFormatted(cell);
         }
         return true;
     }
@@ -0,0 +1,486 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import com.tp.asset_ap.exception.BadRequestException;
+import com.tp.asset_ap.exception.InternalServerErrorException;
+import com.tp.asset_ap.spreadsheet.ExcelRowBuffer;
+import com.tp.asset_ap.spreadsheet.ExcelRowHandler;
+import com.tp.asset_ap.spreadsheet.ExcelRowValues;
+import com.tp.asset_ap.spreadsheet.ExcelStreamingReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.UnaryOperator;
+
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Date1904Support;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 逐列驗證並轉換成 R 的解析樣板，key 為資料所在的 row index。
+ * 子類別只需實作單列的驗證與轉換，可同時用於 Workbook 與 SAX 串流兩種讀取方式。
+ */
+public abstract class ExcelRowParserTemplate<R> extends ExcelParserTemplate<Map<Integer, R>> {
+
+    // 標題列數，資料從第一列往下第 3 列開始
+    private static final int HEADER_ROW_COUNT = 3;
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+    // 平行模式每次交給 pool 的列數，該段驗證與轉換完成並合併後才讀取下一段
+    private static final int PARALLEL_WINDOW_ROWS = 8192;
+    // 平行模式每個子工作至少處理的列數
+    private static final int PARALLEL_MIN_ROWS = 256;
+
+    private final Map<Integer, String> rowErrors = new TreeMap<>();
+    // RowValidator 驗證結果 -> 錯誤訊息，LocaleUtils 依目前的語系組成，因此只在同一個 parser 實例 (一次匯入) 中快取
+    private final Map<Long, String> validationMessages = new ConcurrentHashMap<>();
+
+    /**
+     * 以 SAX 串流讀取，不建立整份 XSSFWorkbook。
+     * 無法將錯誤訊息寫回上傳的檔案，錯誤改由 getRowErrors 取得。
+     */
+    public void parseStreaming(MultipartFile file, int sheetNum) {
+        try (InputStream is = file.getInputStream()) {
+            parseStreaming(is, sheetNum);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public void parseStreaming(InputStream is, int sheetNum) {
+        sheetData.setData(parseStreaming(is, sheetNum, new RowCollector(null, 0)));
+    }
+
+    /**
+     * 以 SAX 串流讀取，每 chunkSize 筆驗證通過的資料列交給 sink，只保留目前這一批與錯誤訊息。
+     * getSheetData 的 data 為空的 Map。
+     *
+     * @return 交給 sink 的資料列數
+     */
+    public long parseStreaming(MultipartFile file, int sheetNum, RowSink<R> sink) {
+        return parseStreaming(file, sheetNum, sink, DEFAULT_CHUNK_SIZE);
+    }
+
+    public long parseStreaming(MultipartFile file, int sheetNum, RowSink<R> sink, int chunkSize) {
+        try (InputStream is = file.getInputStream()) {
+            return parseStreaming(is, sheetNum, sink, chunkSize);
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+    }
+
+    public long parseStreaming(InputStream is, int sheetNum, RowSink<R> sink, int chunkSize) {
+        RowCollector collector = new RowCollector(sink, chunkSize);
+        sheetData.setData(parseStreaming(is, sheetNum, collector));
+        return collector.writtenRows;
+    }
+
+    private Map<Integer, R> parseStreaming(InputStream is, int sheetNum, RowCollector collector) {
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(is);
+             ExcelRowBuffer rowBuffer = new ExcelRowBuffer(reader.isDate1904())) {
+            StreamingRowHandler handler = new StreamingRowHandler(rowBuffer, collector);
+            reader.readSheet(sheetNum, getColumnProjection(), handler);
+            if (handler.firstRowNum < 0) {
+                throw new BadRequestException("解析Excel失敗");
+            }
+        } catch (IOException ex) {
+            throw new InternalServerErrorException(ex);
+        }
+        return collector.finish();
+    }
+
+    /**
+     * 以 Workbook 逐列解析，每 chunkSize 筆驗證通過的資料列交給 sink；錯誤訊息同 parse 會寫回 workbook。
+     * getSheetData 的 data 為空的 Map。
+     *
+     * @return 交給 sink 的資料列數
+     */
+    public long parse(Workbook wb, int sheetNum, RowSink<R> sink, int chunkSize) {
+        Sheet sheet = wb.getSheetAt(sheetNum);
+        int firstRowNum = sheet.getFirstRowNum();
+        if (null == sheet.getRow(firstRowNum)) {
+            throw new BadRequestException("解析Excel失敗");
+        }
+        RowCollector collector = new RowCollector(sink, chunkSize);
+        sheetData.setData(parseRows(firstRowNum, sheet.getPhysicalNumberOfRows(), sheet, collector));
+        return collector.writtenRows;
+    }
+
+    /**
+     * 同 parse，但以 pool 平行驗證與轉換各列，驗證結果依 row index 順序合併，錯誤訊息寫回對應的列。
+     * 同一個工作表的 XSSFRow/XSSFCell 共用 XMLBeans 的同步鎖，無法同時讀取，因此在呼叫端執行緒上
+     * 先將各列的值複製為 ExcelRowValues，pool 的執行緒再各自載入自己的 ExcelRowBuffer 後驗證與轉換。
+     * 與 parseStreaming 相同，傳入 validRowData 與 convertRowData 的 Row 只有值與日期格式，
+     * 公式儲存格為計算結果；讀取值的時間不會縮短，適合驗證與轉換較耗時的解析。
+     * 需要呼叫端執行緒上的設定 (例如語系) 時覆寫 captureParsingContext。
+     */
+    public void parseInParallel(Workbook wb, int sheetNum, ForkJoinPool pool) {
+        sheetData.setData(parseInParallel(wb, sheetNum, new RowCollector(null, 0), pool));
+    }
+
+    // 平行解析並分批交給 sink，getSheetData 的 data 為空的 Map
+    public long parseInParallel(Workbook wb, int sheetNum, RowSink<R> sink, int chunkSize, ForkJoinPool pool) {
+        RowCollector collector = new RowCollector(sink, chunkSize);
+        sheetData.setData(parseInParallel(wb, sheetNum, collector, pool));
+        return collector.writtenRows;
+    }
+
+    private Map<Integer, R> parseInParallel(Workbook wb, int sheetNum, RowCollector collector, ForkJoinPool pool) {
+        Sheet sheet = wb.getSheetAt(sheetNum);
+        int firstRowNum = sheet.getFirstRowNum();
+        if (null == sheet.getRow(firstRowNum)) {
+            throw new BadRequestException("解析Excel失敗");
+        }
+        int rowEnd = sheet.getPhysicalNumberOfRows();
+        UnaryOperator<Runnable> context = captureParsingContext();
+        // 每個執行緒同時只使用一個 buffer，用完放回，數量不超過 pool 的平行度
+        Queue<ExcelRowBuffer> buffers = new ConcurrentLinkedQueue<>();
+        boolean date1904 = wb instanceof Date1904Support && ((Date1904Support) wb).isDate1904();
+        Row[] rows = new Row[PARALLEL_WINDOW_ROWS];
+        ExcelRowValues[] values = new ExcelRowValues[PARALLEL_WINDOW_ROWS];
+        Object[] results = new Object[PARALLEL_WINDOW_ROWS];
+        String[] errors = new String[PARALLEL_WINDOW_ROWS];
+        int rowNum = firstRowNum + HEADER_ROW_COUNT;
+        boolean endOfData = false;
+        startBufferDateStyles();
+        try {
+            while (!endOfData && rowNum < rowEnd) {
+                // 結束與略過的判斷及讀取值依序進行，只有驗證與轉換交給 pool
+                int count = 0;
+                for (; rowNum < rowEnd && count < rows.length; rowNum++) {
+                    Row row = sheet.getRow(rowNum);
+                    if (isEndOfData(row)) {
+                        endOfData = true;
+                        break;
+                    }
+                    if (!isSkipRow(row)) {
+                        rows[count] = row;
+                        values[count++] = ExcelRowValues.copyOf(row);
+                    }
+                }
+                pool.invoke(new ParseRowsTask(values, results, errors, 0, count,
+                    new ParallelContext(context, buffers, date1904)));
+                for (int i = 0; i < count; i++) {
+                    if (errors[i] != null) {
+                        recordError(rows[i], errors[i], true);
+                        collector.add(rows[i].getRowNum(), null);
+                    } else {
+                        @SuppressWarnings("unchecked")
+                        R rowData = (R) results[i];
+                        collector.add(rows[i].getRowNum(), rowData);
+                    }
+                    rows[i] = null;
+                    values[i] = null;
+                    results[i] = null;
+                    errors[i] = null;
+                }
+            }
+        } finally {
+            clearBufferDateStyles();
+            closeAll(buffers);
+        }
+        return collector.finish();
+    }
+
+    private static void closeAll(Queue<ExcelRowBuffer> buffers) {
+        for (ExcelRowBuffer buffer : buffers) {
+            try {
+                buffer.close();
+            } catch (IOException ex) {
+                throw new InternalServerErrorException(ex);
+            }
+        }
+    }
+
+    /**
+     * 在呼叫端執行緒上取得平行解析需要的設定，回傳的函式會在 pool 的執行緒上包裝每個子工作，例如：
+     * <pre>
+     * Locale locale = LocaleContextHolder.getLocale();
+     * return task -&gt; () -&gt; {
+     *     LocaleContextHolder.setLocale(locale);
+     *     try {
+     *         task.run();
+     *     } finally {
+     *         LocaleContextHolder.resetLocaleContext();
+     *     }
+     * };
+     * </pre>
+     */
+    protected UnaryOperator<Runnable> captureParsingContext() {
+        return UnaryOperator.identity();
+    }
+
+    // 驗證失敗的列與錯誤訊息
+    public Map<Integer, String> getRowErrors() {
+        return Collections.unmodifiableMap(rowErrors);
+    }
+
+    @Override
+    protected Map<Integer, R> parseEachRowData(int firstRow, int rowEnd, Sheet sheet) {
+        return parseRows(firstRow, rowEnd, sheet, new RowCollector(null, 0));
+    }
+
+    private Map<Integer, R> parseRows(int firstRow, int rowEnd, Sheet sheet, RowCollector collector) {
+        for (int rowNum = firstRow + HEADER_ROW_COUNT; rowNum < rowEnd; rowNum++) {
+            Row row = sheet.getRow(rowNum);
+            if (isEndOfData(row)) {
+                break;
+            }
+            if (isSkipRow(row)) {
+                continue;
+            }
+            collector.add(rowNum, parseRow(row, true));
+        }
+        return collector.finish();
+    }
+
+    // 驗證失敗時記錄錯誤並回傳 null
+    protected R parseRow(Row row, boolean writeBackError) {
+        //            驗證並設置錯誤訊息至對應的row
+        String errMsg = validateRow(row);
+        if (errMsg != null) {
+            recordError(row, errMsg, writeBackError);
+            return null;
+        }
+        return convertRowData(row);
+    }
+
+    // 回傳錯誤訊息，驗證通過時回傳 null
+    private String validateRow(Row row) {
+        RowValidator validator = getRowValidator();
+        if (validator != null) {
+            return validate(validator, row);
+        }
+        try {
+            validRowData(row);
+            return null;
+        } catch (BadRequestException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * 以 validator 驗證，不拋出例外；相同的驗證結果只組一次錯誤訊息
+     *
+     * @return 錯誤訊息，驗證通過時回傳 null
+     */
+    protected final String validate(RowValidator validator, Row row) {
+        long failures = validator.validate(this, row);
+        return failures == 0 ? null : validationMessages.computeIfAbsent(failures, validator::getMessage);
+    }
+
+    // 串流讀取時只載入的欄位，null 表示全部；需包含 isEndOfData、isSkipRow、驗證與轉換會讀取的欄位
+    protected BitSet getColumnProjection() {
+        return null;
+    }
+
+    // 以 RowValidator 宣告驗證規則時覆寫，解析時改用 validator 而不呼叫 validRowData
+    protected RowValidator getRowValidator() {
+        return null;
+    }
+
+    private void recordError(Row row, String message, boolean writeBackError) {
+        rowErrors.put(row.getRowNum(), message);
+        if (writeBackError) {
+            row.createCell(getErrorCellIndex(), CellType.STRING);
+            getCell(row, getErrorCellIndex()).setCellValue(message);
+        }
+        super.sheetData.setValid(false);
+    }
+
+    private void reportParsed(int parsedRows, int failedRows) {
+        metrics.rowsParsed(parsedRows);
+        metrics.validationFailed(failedRows);
+    }
+
+    // 遇到此列即停止解析
+    protected boolean isEndOfData(Row row) {
+        return false;
+    }
+
+    // 略過此列，繼續解析下一列
+    protected boolean isSkipRow(Row row) {
+        return isRowEmpty(row);
+    }
+
+    protected abstract int getErrorCellIndex();
+
+    public abstract void validRowData(Row row) throws BadRequestException;
+
+    protected abstract R convertRowData(Row row);
+
+    // 收集轉換後的資料列，sink 為 null 時全部保留，否則每 chunkSize 筆交給 sink
+    private final class RowCollector {
+        private final RowSink<R> sink;
+        private final int chunkSize;
+        private Map<Integer, R> chunk;
+        private int parsedRows;
+        private int failedRows;
+        private long writtenRows;
+
+        private RowCollector(RowSink<R> sink, int chunkSize) {
+            this.sink = sink;
+            this.chunkSize = Math.max(1, chunkSize);
+            this.chunk = sink == null ? new HashMap<>() : newChunk();
+        }
+
+        private Map<Integer, R> newChunk() {
+            return new LinkedHashMap<>(chunkSize * 4 / 3 + 1);
+        }
+
+        private void add(int rowNum, R rowData) {
+            parsedRows++;
+            if (rowData == null) {
+                failedRows++;
+                return;
+            }
+            chunk.put(rowNum, rowData);
+            if (sink != null && chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (!chunk.isEmpty()) {
+                Map<Integer, R> full = chunk;
+                chunk = newChunk();
+                writtenRows += full.size();
+                sink.accept(full);
+            }
+        }
+
+        private Map<Integer, R> finish() {
+            reportParsed(parsedRows, failedRows);
+            if (sink == null) {
+                return chunk;
+            }
+            flush();
+            sink.complete();
+            return Collections.emptyMap();
+        }
+    }
+
+    // 平行解析中各子工作共用的設定
+    private static final class ParallelContext {
+        private final UnaryOperator<Runnable> wrapper;
+        private final Queue<ExcelRowBuffer> buffers;
+        private final boolean date1904;
+
+        private ParallelContext(UnaryOperator<Runnable> wrapper, Queue<ExcelRowBuffer> buffers, boolean date1904) {
+            this.wrapper = wrapper;
+            this.buffers = buffers;
+            this.date1904 = date1904;
+        }
+
+        private ExcelRowBuffer borrow() {
+            ExcelRowBuffer buffer = buffers.poll();
+            return buffer != null ? buffer : new ExcelRowBuffer(date1904);
+        }
+    }
+
+    // 驗證並轉換 values[from, to)，結果寫入 results 或 errors 的相同位置
+    private final class ParseRowsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ExcelRowValues[] values;
+        private final Object[] results;
+        private final String[] errors;
+        private final int from;
+        private final int to;
+        private final ParallelContext context;
+
+        private ParseRowsTask(
+            ExcelRowValues[] values, Object[] results, String[] errors, int from, int to,
+            ParallelContext context) {
+            this.values = values;
+            this.results = results;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARALLEL_MIN_ROWS) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseRowsTask(values, results, errors, from, mid, context),
+                    new ParseRowsTask(values, results, errors, mid, to, context));
+                return;
+            }
+            ExcelRowBuffer buffer = context.borrow();
+            try {
+                context.wrapper.apply(() -> {
+                    for (int i = from; i < to; i++) {
+                        Row row = buffer.load(values[i]);
+                        String errMsg = validateRow(row);
+                        if (errMsg != null) {
+                            errors[i] = errMsg;
+                        } else {
+                            results[i] = convertRowData(row);
+                        }
+                    }
+                }).run();
+            } finally {
+                context.buffers.add(buffer);
+            }
+        }
+    }
+
+    private final class StreamingRowHandler implements ExcelRowHandler {
+        private final ExcelRowBuffer rowBuffer;
+        private final RowCollector collector;
+        private int firstRowNum = -1;
+        private int nextRowNum;
+        private boolean finished;
+
+        private StreamingRowHandler(ExcelRowBuffer rowBuffer, RowCollector collector) {
+            this.rowBuffer = rowBuffer;
+            this.collector = collector;
+        }
+
+        @Override
+        public void handleRow(ExcelRowValues values) {
+            if (firstRowNum < 0) {
+                firstRowNum = values.getRowNum();
+                nextRowNum = firstRowNum + HEADER_ROW_COUNT;
+            }
+            int rowNum = values.getRowNum();
+            if (rowNum < nextRowNum) {
+                return;
+            }
+            // 檔案中不存在的列視同 null row
+            if (rowNum > nextRowNum && isEndOfData(null)) {
+                finished = true;
+                return;
+            }
+            nextRowNum = rowNum + 1;
+            Row row = rowBuffer.load(values);
+            if (isEndOfData(row)) {
+                finished = true;
+                return;
+            }
+            if (isSkipRow(row)) {
+                return;
+            }
+            collector.add(rowNum, parseRow(row, false));
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+}
@@ -3,20 +3,12 @@ package com.tp.asset_ap.spreadsheet.parser;
 import com.tp.asset_ap.exception.BadRequestException;
 import com.tp.asset_ap.model.bo.HardwareBindExcelBO;
 import com.tp.asset_ap.util.ExcelUtils;
-import com.tp.asset_ap.util.LocaleUtils;
 import com.tp.asset_ap.util.TPStringUtils;
 import com.tp.asset_ap.util.TokenUtils;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 
-public class HardwareBindExcelParser extends ExcelParserTemplate<Map<Integer, HardwareBindExcelBO>> {
+public class HardwareBindExcelParser extends ExcelRowParserTemplate<HardwareBindExcelBO> {
     private static final Integer ASSET_ID_CELL_INDEX = 0;
     private static final Integer AGENT_CELL_INDEX = 1;
     private static final Integer USER_CELL_INDEX = 2;
@@ -26,35 +18,24 @@ public class HardwareBindExcelParser extends ExcelParserTemplate<Map<Integer, Ha
     private static final Integer PICK_DATE_CELL_INDEX = 6;
     private static final Integer RETURN_DATE_CELL_INDEX = 7;
 
-    @Override
-    protected Map<Integer, HardwareBindExcelBO> parseEachRowData(
-        int fisrtRow, int rowEnd,
-        Sheet sheet) {
-        Map<Integer, HardwareBindExcelBO> dataMap = new HashMap<>();
-        int rowStart = fisrtRow + 3;
-
-        for (int rowNum = rowStart; rowNum < rowEnd; rowNum++) {
-            Row row = sheet.getRow(rowNum);
-            if (isRowEmpty(row)) {
-                continue;
-            }
-            //            驗證並設置錯誤訊息至對應的row
-            try {
-                validRowData(row);
-            } catch (BadRequestException e) {
-                row.createCell(ExcelUtils.HARDWARE_BIND_ERROR_CELL, CellType.STRING);
-                getCell(row, ExcelUtils.HARDWARE_BIND_ERROR_CELL).setCellValue(e.getMessage());
-                super.sheetData.setValid(false);
-                continue;
-            }
+    private static final RowValidator VALIDATOR = RowValidator.builder()
+        .required(ASSET_ID_CELL_INDEX, "AdminHardwareEntity.assetType.name")
+        .required(USER_CELL_INDEX, "AdminHardwareEntity.user.name")
+        .required(LOCATION_CELL_INDEX, "AdminHardwareEntity.location.name")
+        .required(PROJECT_CELL_INDEX, "AdminHardwareEntity.project.name")
+        .required(DEPARTMENT_CELL_INDEX, "AdminHardwareEntity.department.name")
+        .required(PICK_DATE_CELL_INDEX, "AdminHardwareEntity.actualPickupDate.name")
+        .integer(DEPARTMENT_CELL_INDEX)
+        .date(PICK_DATE_CELL_INDEX, RETURN_DATE_CELL_INDEX)
+        .build();
 
-            HardwareBindExcelBO excelRowBO = convertRowData(row);
-            dataMap.put(rowNum, excelRowBO);
-        }
-        return dataMap;
+    @Override
+    protected int getErrorCellIndex() {
+        return ExcelUtils.HARDWARE_BIND_ERROR_CELL;
     }
 
-    private HardwareBindExcelBO convertRowData(Row row) {
+    @Override
+    protected HardwareBindExcelBO convertRowData(Row row) {
         HardwareBindExcelBO rowBO = new HardwareBindExcelBO();
         String assetId = convertCellValueToString(getCell(row, ASSET_ID_CELL_INDEX));
         rowBO.setAssetId(assetId);
@@ -82,43 +63,15 @@ public class HardwareBindExcelParser extends ExcelParserTemplate<Map<Integer, Ha
         return rowBO;
     }
 
-    public void validRowData(Row row) throws BadRequestException {
-        List<String> errorMsgList = new ArrayList<>();
-        String errMsg = "";
-        // 檢查資料不可為空
-        if (cellIsEmpty(getCell(row, ASSET_ID_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.assetType.name"));
-        }
-        if (cellIsEmpty(getCell(row, USER_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.user.name"));
-        }
-        if (cellIsEmpty(getCell(row, LOCATION_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.location.name"));
-        }
-        if (cellIsEmpty(getCell(row, PROJECT_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.project.name"));
-        }
-        if (cellIsEmpty(getCell(row, DEPARTMENT_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.department.name"));
-        }
-        if (cellIsEmpty(getCell(row, PICK_DATE_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.actualPickupDate.name"));
-        }
-
-        if (!errorMsgList.isEmpty()) {
-            errMsg = LocaleUtils.get("ExcelParser.required",
-                String.join(",", errorMsgList)) + "\n";
-        }
-
-        if (!isValidInteger(row.getCell(DEPARTMENT_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.integer") + "\n";
-        }
+    @Override
+    protected RowValidator getRowValidator() {
+        return VALIDATOR;
+    }
 
-        if (!isValidDateFormat(row.getCell(PICK_DATE_CELL_INDEX)) || !isValidDateFormat(
-            row.getCell(RETURN_DATE_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.dateTime") + "\n";
-        }
-        if (TPStringUtils.isNotEmpty(errMsg)) {
+    @Override
+    public void validRowData(Row row) throws BadRequestException {
+        String errMsg = validate(VALIDATOR, row);
+        if (errMsg != null) {
             throw new BadRequestException(errMsg);
         }
     }
@@ -3,19 +3,9 @@ package com.tp.asset_ap.spreadsheet.parser;
 import com.tp.asset_ap.exception.BadRequestException;
 import com.tp.asset_ap.model.bo.HardwareExcelRowBO;
 
-import com.tp.asset_ap.util.LocaleUtils;
-import com.tp.asset_ap.util.TPStringUtils;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 
-public class HardwareExcelParser extends ExcelParserTemplate<Map<Integer, HardwareExcelRowBO>> {
+public class HardwareExcelParser extends ExcelRowParserTemplate<HardwareExcelRowBO> {
 
     private static final Integer DEFINE_CELL_INDEX = 0;
     private static final Integer ASSET_CELL_INDEX = 1;
@@ -38,36 +28,47 @@ public class HardwareExcelParser extends ExcelParserTemplate<Map<Integer, Hardwa
     private static final Integer ASSET_TYPE_CELL_INDEX = 18;
     private static final Integer ERROR_MSG_CELL_INDEX = 19;
 
+    private static final RowValidator VALIDATOR = RowValidator.builder()
+        // 資產定義
+        .required(DEFINE_CELL_INDEX, "AdminHardwareEntity.define.name")
+        // 資產項目
+        .required(ASSET_CELL_INDEX, "AdminHardwareEntity.assetType.name")
+        // 廠牌
+        .required(BRAND_CELL_INDEX, "AdminHardwareEntity.brand.name")
+        // 名稱
+        .required(NAME_CELL_INDEX, "AdminHardwareEntity.assetName")
+        // 型號
+        .required(MODEL_CELL_INDEX, "AdminHardwareEntity.modelNumber.name")
+        // 規格
+        .required(SPEC_CELL_INDEX, "AdminHardwareEntity.spec.name")
+        // 產品序號
+        .required(PRODUCT_CELL_INDEX, "AdminHardwareEntity.serialNumber.name")
+        // 資產別
+        .required(ASSET_TYPE_CELL_INDEX, "AdminHardwareEntity.assetClass.name")
+        // 價格,年限,處別
+        .integer(PRICE_CELL_INDEX, DURABLE_CELL_INDEX, DEPARTMENT_CELL_INDEX)
+        // 購買日期,保固期限起迄日
+        .date(PUCRHASE_DATE_CELL_INDEX, WARRANTY_START_CELL_INDEX, WARRANTY_END_CELL_INDEX)
+        .build();
+
     @Override
-    protected Map<Integer, HardwareExcelRowBO> parseEachRowData(
-        int fisrtRow, int rowEnd,
-        Sheet sheet) {
-        Map<Integer, HardwareExcelRowBO> dataMap = new HashMap<>();
-        int rowStart = fisrtRow + 3;
+    protected boolean isEndOfData(Row row) {
+        return null == row || "".equals(convertCellValueToString(row.getCell(0)))
+            || null == convertCellValueToString(row.getCell(0));
+    }
 
-        for (int rowNum = rowStart; rowNum < rowEnd; rowNum++) {
-            Row row = sheet.getRow(rowNum);
-            if (null == row || "".equals(convertCellValueToString(row.getCell(0)))
-                || null == convertCellValueToString(row.getCell(0))) {
-                break;
-            }
-            //            驗證並設置錯誤訊息至對應的row
-            try {
-                validRowData(row);
-            } catch (BadRequestException e) {
-                row.createCell(ERROR_MSG_CELL_INDEX, CellType.STRING);
-                getCell(row, ERROR_MSG_CELL_INDEX).setCellValue(e.getMessage());
-                super.sheetData.setValid(false);
-                continue;
-            }
+    @Override
+    protected boolean isSkipRow(Row row) {
+        return false;
+    }
 
-            HardwareExcelRowBO excelRowBO = convertRowToPDTO(row);
-            dataMap.put(rowNum, excelRowBO);
-        }
-        return dataMap;
+    @Override
+    protected int getErrorCellIndex() {
+        return ERROR_MSG_CELL_INDEX;
     }
 
-    private HardwareExcelRowBO convertRowToPDTO(Row row) {
+    @Override
+    protected HardwareExcelRowBO convertRowData(Row row) {
         HardwareExcelRowBO excelRowBO = new HardwareExcelRowBO();
         String defineCode = convertCellValueToString(getCell(row, DEFINE_CELL_INDEX));
         excelRowBO.setDefineCode(defineCode);
@@ -130,60 +131,15 @@ public class HardwareExcelParser extends ExcelParserTemplate<Map<Integer, Hardwa
         return excelRowBO;
     }
 
-    public void validRowData(Row row) throws BadRequestException {
-        List<String> errorMsgList = new ArrayList<>();
-        String errMsg = "";
-        // 檢查資料不可為空
-        //        資產定義
-        if (cellIsEmpty(row.getCell(DEFINE_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.define.name"));
-        }
-        //資產項目
-        if (cellIsEmpty(row.getCell(ASSET_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.assetType.name"));
-        }
-        //廠牌
-        if (cellIsEmpty(row.getCell(BRAND_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.brand.name"));
-        }
-        // 名稱
-        if (cellIsEmpty(row.getCell(NAME_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.assetName"));
-        }
-        // 型號
-        if (cellIsEmpty(row.getCell(MODEL_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.modelNumber.name"));
-        }
-        // 規格
-        if (cellIsEmpty(row.getCell(SPEC_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.spec.name"));
-        }
-        // 產品序號
-        if (cellIsEmpty(row.getCell(PRODUCT_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.serialNumber.name"));
-        }
-        // 資產別
-        if (cellIsEmpty(row.getCell(ASSET_TYPE_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("AdminHardwareEntity.assetClass.name"));
-        }
-        if (!errorMsgList.isEmpty()) {
-            errMsg = LocaleUtils.get("ExcelParser.required",
-                String.join(",", errorMsgList)) + "\n";
-        }
+    @Override
+    protected RowValidator getRowValidator() {
+        return VALIDATOR;
+    }
 
-        //        檢查是否合法的整數(價格,年限,處別)
-        if (!isValidInteger(row.getCell(PRICE_CELL_INDEX)) || !isValidInteger(
-            row.getCell(DURABLE_CELL_INDEX)) || !isValidInteger(
-            row.getCell(DEPARTMENT_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.integer") + "\n";
-        }
-        //        檢查日期格式(購買日期,保固期限起迄日)
-        if (!isValidDateFormat(row.getCell(PUCRHASE_DATE_CELL_INDEX)) || !isValidDateFormat(
-            row.getCell(WARRANTY_START_CELL_INDEX)) || !isValidDateFormat(
-            row.getCell(WARRANTY_END_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.dateTime") + "\n";
-        }
-        if (TPStringUtils.isNotEmpty(errMsg)) {
+    @Override
+    public void validRowData(Row row) throws BadRequestException {
+        String errMsg = validate(VALIDATOR, row);
+        if (errMsg != null) {
             throw new BadRequestException(errMsg);
         }
     }
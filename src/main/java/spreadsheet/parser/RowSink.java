@@ -0,0 +1,20 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import java.util.Map;
+
+/**
+ * 分批接收 ExcelRowParserTemplate 轉換後的資料列，例如每批以 JDBC batch insert 寫入。
+ * 只會收到驗證通過的資料列，驗證失敗的列由 getRowErrors 取得。
+ */
+@FunctionalInterface
+public interface RowSink<R> {
+
+    /**
+     * @param chunk key 為資料所在的 row index，依 row index 遞增排序；呼叫結束後樣板不再使用此 Map
+     */
+    void accept(Map<Integer, R> chunk);
+
+    // 最後一批寫入後呼叫，解析失敗拋出例外時不會呼叫
+    default void complete() {
+    }
+}
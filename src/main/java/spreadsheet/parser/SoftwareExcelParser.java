@@ -1,23 +1,12 @@
 package com.tp.asset_ap.spreadsheet.parser;
 
 import com.tp.asset_ap.exception.BadRequestException;
-import com.tp.asset_ap.model.bo.HardwareExcelRowBO;
 import com.tp.asset_ap.model.bo.SoftwareExcelRowBO;
 import com.tp.asset_ap.util.ExcelUtils;
-import com.tp.asset_ap.util.LocaleUtils;
-import com.tp.asset_ap.util.TPStringUtils;
 
-import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
-import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
 
-public class SoftwareExcelParser extends ExcelParserTemplate<Map<Integer, SoftwareExcelRowBO>> {
+public class SoftwareExcelParser extends ExcelRowParserTemplate<SoftwareExcelRowBO> {
     private static final Integer DEFINE_CELL_INDEX = 0;
     private static final Integer ASSET_CELL_INDEX = 1;
     private static final Integer NAME_CELL_INDEX = 2;
@@ -42,35 +31,30 @@ public class SoftwareExcelParser extends ExcelParserTemplate<Map<Integer, Softwa
     private static final Integer KEY_CELL_INDEX = 21;
     private static final Integer OTHER_CELL_INDEX = 22;
 
+    private static final RowValidator VALIDATOR = RowValidator.builder()
+        .required(DEFINE_CELL_INDEX, "SoftwareEntity.define.name")
+        .required(ASSET_CELL_INDEX, "SoftwareEntity.assetType.name")
+        .required(NAME_CELL_INDEX, "SoftwareEntity.name")
+        .required(VERSION_CELL_INDEX, "SoftwareEntity.version.name")
+        .required(SPEC_CELL_INDEX, "SoftwareEntity.spec.name")
+        .required(LICENSE_TYPE_CELL_INDEX, "SoftwareEntity.licenseType.name")
+        .required(LICENSE_YEAR_CELL_INDEX, "SoftwareEntity.licenseYear.name")
+        .required(LICENSE_START_CELL_INDEX, "SoftwareEntity.licenseStart.name")
+        .required(LICENSE_END_CELL_INDEX, "SoftwareEntity.licenseYear.name")
+        .required(LICENSE_COUNT_CELL_INDEX, "SoftwareEntity.licenseCount.name")
+        // 價格,授權數量,處別
+        .integer(PRICE_CELL_INDEX, LICENSE_COUNT_CELL_INDEX, DEPARTMENT_CELL_INDEX)
+        // 購買日期,授權起迄日
+        .date(PUCRHASE_DATE_CELL_INDEX, LICENSE_START_CELL_INDEX, LICENSE_END_CELL_INDEX)
+        .build();
+
     @Override
-    protected Map<Integer, SoftwareExcelRowBO> parseEachRowData(
-        int rowStart, int rowEnd,
-        Sheet sheet) throws ParseException {
-        Map<Integer, SoftwareExcelRowBO> dataMap = new HashMap<>();
-        int firstRow = rowStart + 3;
-
-        for (int rowNum = firstRow; rowNum < rowEnd; rowNum++) {
-            Row row = sheet.getRow(rowNum);
-            if (isRowEmpty(row)) {
-                continue;
-            }
-            //            驗證並設置錯誤訊息至對應的row
-            try {
-                validRowData(row);
-            } catch (BadRequestException e) {
-                row.createCell(ExcelUtils.SOFTWARE_IMPORT_ERROR_CELL, CellType.STRING);
-                getCell(row, ExcelUtils.SOFTWARE_IMPORT_ERROR_CELL).setCellValue(e.getMessage());
-                super.sheetData.setValid(false);
-                continue;
-            }
-
-            SoftwareExcelRowBO excelRowBO = convertRowToPDTO(row);
-            dataMap.put(rowNum, excelRowBO);
-        }
-        return dataMap;
+    protected int getErrorCellIndex() {
+        return ExcelUtils.SOFTWARE_IMPORT_ERROR_CELL;
     }
 
-    private SoftwareExcelRowBO convertRowToPDTO(Row row) {
+    @Override
+    protected SoftwareExcelRowBO convertRowData(Row row) {
         SoftwareExcelRowBO excelRowBO = new SoftwareExcelRowBO();
 
         String defineCode = convertCellValueToString(getCell(row, DEFINE_CELL_INDEX));
@@ -144,58 +128,15 @@ public class SoftwareExcelParser extends ExcelParserTemplate<Map<Integer, Softwa
         return excelRowBO;
     }
 
-    public void validRowData(Row row) throws BadRequestException {
-        List<String> errorMsgList = new ArrayList<>();
-        String errMsg = "";
-        // 檢查資料不可為空
-        if (cellIsEmpty(row.getCell(DEFINE_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.define.name"));
-        }
-        if (cellIsEmpty(row.getCell(ASSET_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.assetType.name"));
-        }
-        if (cellIsEmpty(row.getCell(NAME_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.name"));
-        }
-        if (cellIsEmpty(row.getCell(VERSION_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.version.name"));
-        }
-        if (cellIsEmpty(row.getCell(SPEC_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.spec.name"));
-        }
-        if (cellIsEmpty(row.getCell(LICENSE_TYPE_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.licenseType.name"));
-        }
-        if (cellIsEmpty(row.getCell(LICENSE_YEAR_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.licenseYear.name"));
-        }
-        if (cellIsEmpty(row.getCell(LICENSE_START_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.licenseStart.name"));
-        }
-        if (cellIsEmpty(row.getCell(LICENSE_END_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.licenseYear.name"));
-        }
-        if (cellIsEmpty(row.getCell(LICENSE_COUNT_CELL_INDEX))) {
-            errorMsgList.add(LocaleUtils.get("SoftwareEntity.licenseCount.name"));
-        }
-        if (!errorMsgList.isEmpty()) {
-            errMsg = LocaleUtils.get("ExcelParser.required",
-                String.join(",", errorMsgList)) + "\n";
-        }
+    @Override
+    protected RowValidator getRowValidator() {
+        return VALIDATOR;
+    }
 
-        //        檢查是否合法的整數(價格,年限,處別)
-        if (!isValidInteger(row.getCell(PRICE_CELL_INDEX)) || !isValidInteger(
-            row.getCell(LICENSE_COUNT_CELL_INDEX)) || !isValidInteger(
-            row.getCell(DEPARTMENT_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.integer") + "\n";
-        }
-        //        檢查日期格式(購買日期,保固期限起迄日)
-        if (!isValidDateFormat(row.getCell(PUCRHASE_DATE_CELL_INDEX)) || !isValidDateFormat(
-            row.getCell(LICENSE_START_CELL_INDEX)) || !isValidDateFormat(
-            row.getCell(LICENSE_END_CELL_INDEX))) {
-            errMsg += LocaleUtils.get("ExcelParser.invalid.dateTime") + "\n";
-        }
-        if (TPStringUtils.isNotEmpty(errMsg)) {
+    @Override
+    public void validRowData(Row row) throws BadRequestException {
+        String errMsg = validate(VALIDATOR, row);
+        if (errMsg != null) {
             throw new BadRequestException(errMsg);
         }
     }
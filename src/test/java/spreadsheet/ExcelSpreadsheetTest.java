@@ -0,0 +1,328 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class ExcelSpreadsheetTest {
+
+    @Test
+    void mergeCellsOnlyPaintsBordersOfExistingCells() throws IOException {
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.setCellValue(0, 1, "2024/01/01", ExcelSpreadsheet.cellLeftStyle());
+            spreadsheet.mergeCells(0, 0, 1, 3, ExcelSpreadsheet.cellCenterStyle());
+
+            Sheet sheet = spreadsheet.getWorkingSheet();
+            CellStyle first = sheet.getRow(0).getCell(1).getCellStyle();
+            assertEquals(HorizontalAlignment.LEFT, first.getAlignment());
+            assertEquals(BorderStyle.THIN, first.getBorderLeft());
+            assertEquals(BorderStyle.THIN, first.getBorderTop());
+            CellStyle last = sheet.getRow(0).getCell(3).getCellStyle();
+            assertEquals(HorizontalAlignment.GENERAL, last.getAlignment());
+            assertEquals(BorderStyle.THIN, last.getBorderRight());
+            assertEquals(1, spreadsheet.getMergedRegionCount());
+        }
+    }
+
+    @Test
+    void buildCellStyleReturnsIndependentCopy() throws IOException {
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            CellStyle shared = spreadsheet.buildCellStyles(ExcelSpreadsheet.cellCenterStyle())[0];
+
+            CellStyle copy = spreadsheet.buildCellStyle(ExcelSpreadsheet.cellCenterStyle());
+            copy.setFillForegroundColor(IndexedColors.RED.getIndex());
+
+            assertNotSame(shared, copy);
+            assertEquals(HorizontalAlignment.CENTER, copy.getAlignment());
+            assertEquals(shared.getFontIndex(), copy.getFontIndex());
+            assertSame(shared, spreadsheet.buildCellStyles(ExcelSpreadsheet.cellCenterStyle())[0]);
+            assertEquals(IndexedColors.AUTOMATIC.getIndex(), shared.getFillForegroundColor());
+        }
+    }
+
+    @Test
+    void writeTypedValueKeepsNumbersBeyondDoublePrecisionAsText() throws IOException {
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.setCellValue(0, 0, 999_999_999_999_999L);
+            spreadsheet.setCellValue(0, 1, 1_234_567_890_123_456_789L);
+            spreadsheet.setCellValue(0, 2, new BigDecimal("12345.6789"));
+            spreadsheet.setCellValue(0, 3, new BigDecimal("0.1234567890123456789"));
+            spreadsheet.setCellValue(0, 4, new BigInteger("98765432109876543210"));
+            spreadsheet.setCellValue(0, 5, new BigDecimal("1.50000000000000000000"));
+
+            Sheet sheet = spreadsheet.getWorkingSheet();
+            assertNumeric(999_999_999_999_999d, sheet.getRow(0).getCell(0));
+            assertText("1234567890123456789", sheet.getRow(0).getCell(1));
+            assertNumeric(12345.6789, sheet.getRow(0).getCell(2));
+            assertText("0.1234567890123456789", sheet.getRow(0).getCell(3));
+            assertText("98765432109876543210", sheet.getRow(0).getCell(4));
+            assertNumeric(1.5, sheet.getRow(0).getCell(5));
+        }
+    }
+
+    @Test
+    void writeTypedValueKeepsOwnOffsetAndConvertsInstantWithZone() throws IOException {
+        LocalDateTime local = LocalDateTime.of(2024, 3, 1, 9, 30);
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.setZoneId(ZoneId.of("Asia/Taipei"));
+            spreadsheet.setCellValue(0, 0, OffsetDateTime.of(local, ZoneOffset.ofHours(-5)));
+            spreadsheet.setCellValue(0, 1, ZonedDateTime.of(local, ZoneId.of("Europe/Paris")));
+            spreadsheet.setCellValue(0, 2, local.toInstant(ZoneOffset.UTC));
+            spreadsheet.rowWriter().startRow(1).write(0, local.toInstant(ZoneOffset.UTC), (CellStyle) null);
+
+            Sheet sheet = spreadsheet.getWorkingSheet();
+            assertEquals(local, sheet.getRow(0).getCell(0).getLocalDateTimeCellValue());
+            assertEquals(local, sheet.getRow(0).getCell(1).getLocalDateTimeCellValue());
+            assertEquals(local.plusHours(8), sheet.getRow(0).getCell(2).getLocalDateTimeCellValue());
+            assertEquals(local.plusHours(8), sheet.getRow(1).getCell(0).getLocalDateTimeCellValue());
+        }
+    }
+
+    @Test
+    void parallelSheetsUseZoneOfParent() throws IOException {
+        LocalDateTime local = LocalDateTime.of(2024, 3, 1, 9, 30);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.setZoneId(ZoneId.of("Asia/Taipei"));
+            Map<String, SheetWriter> writers = new LinkedHashMap<>();
+            writers.put("明細", sheet -> sheet.setCellValue(0, 0, local.toInstant(ZoneOffset.UTC)));
+            spreadsheet.generateSheetsInParallel(writers, executor);
+
+            Cell cell = spreadsheet.useSheet("明細").getWorkingSheet().getRow(0).getCell(0);
+            assertEquals(local.plusHours(8), cell.getLocalDateTimeCellValue());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void generatePivotSheetWritesRowAndColumnTotals() throws IOException {
+        PivotTable<Integer, Integer> pivot = new PivotTable<>(labels("電腦", "車輛"), labels("北區", "南區"));
+        pivot.add(1, 1, new BigDecimal("10.25")).add(1, 2, new BigDecimal("5"))
+            .add(2, 2, new BigDecimal("0.75"));
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.generatePivotSheet(pivot, 2, 1, PivotSheetOptions.builder()
+                .cornerLabel("資產項目").sumFormula(true).build());
+
+            Sheet sheet = spreadsheet.getWorkingSheet();
+            Row header = sheet.getRow(2);
+            assertText("資產項目", header.getCell(1));
+            assertText("南區", header.getCell(3));
+            assertText("小計", header.getCell(4));
+            assertNumeric(10.25, sheet.getRow(3).getCell(2));
+            assertNumeric(0, sheet.getRow(4).getCell(2));
+            Cell rowTotal = sheet.getRow(3).getCell(4);
+            assertEquals("SUM(C4:D4)", rowTotal.getCellFormula());
+            assertEquals(15.25, rowTotal.getNumericCellValue());
+            Row totals = sheet.getRow(5);
+            assertText("總計", totals.getCell(1));
+            assertEquals("SUM(D4:D5)", totals.getCell(3).getCellFormula());
+            assertEquals(5.75, totals.getCell(3).getNumericCellValue());
+            assertEquals(16.0, totals.getCell(4).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void generatePivotSheetRejectsOverflowingTotals() throws IOException {
+        PivotTable<Integer, Integer> pivot = new PivotTable<>(labels("電腦", "車輛"), labels("北區"));
+        pivot.add(0, 0, Long.MAX_VALUE).add(1, 0, 1L);
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            PivotSheetOptions options = PivotSheetOptions.builder().build();
+            assertThrows(ArithmeticException.class, () -> spreadsheet.generatePivotSheet(pivot, 0, 0, options));
+        }
+    }
+
+    @Test
+    void generateSheetsInParallelWritesEverySheet() throws IOException {
+        int sheetCount = 4;
+        int rows = 300;
+        ExecutorService executor = Executors.newFixedThreadPool(sheetCount);
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("總表")) {
+            Map<String, SheetWriter> writers = new LinkedHashMap<>();
+            for (int index = 0; index < sheetCount; index++) {
+                String name = "分區" + index;
+                // 各工作表使用不同字型大小，平行新增字型並讀取字型大小計算列高
+                SpreadsheetFontStyle font = SpreadsheetFontStyle.builder()
+                    .fontName("標楷體").fontSize(10 + index).build();
+                writers.put(name, sheet -> {
+                    sheet.trackRowHeight();
+                    CellStyle style = sheet.buildCellStyles(ExcelSpreadsheet.cellCenterStyle(font))[0];
+                    RowWriter writer = sheet.rowWriter();
+                    for (int row = 0; row < rows; row++) {
+                        String text = name + "-" + row + "-" + "很長的說明文字".repeat(row % 5);
+                        writer.startRow(row).write(0, text, style).write(1, row, style);
+                    }
+                });
+            }
+            spreadsheet.generateSheetsInParallel(writers, executor);
+
+            try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(spreadsheet.getBytes()))) {
+                assertEquals(sheetCount + 1, workbook.getNumberOfSheets());
+                for (int index = 0; index < sheetCount; index++) {
+                    Sheet sheet = workbook.getSheetAt(index + 1);
+                    assertEquals("分區" + index, sheet.getSheetName());
+                    for (int rowIndex = 0; rowIndex < rows; rowIndex++) {
+                        Row row = sheet.getRow(rowIndex);
+                        assertText("分區" + index + "-" + rowIndex + "-" + "很長的說明文字".repeat(rowIndex % 5),
+                            row.getCell(0));
+                        assertNumeric(rowIndex, row.getCell(1));
+                        int fontIndex = row.getCell(0).getCellStyle().getFontIndex();
+                        assertEquals(10 + index, workbook.getFontAt(fontIndex).getFontHeightInPoints());
+                        if (rowIndex % 5 == 4) {
+                            assertTrue(row.getHeightInPoints() > sheet.getDefaultRowHeightInPoints());
+                        }
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void generateSheetsInParallelRejectsXssWorkbook() throws IOException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ExcelSpreadsheet spreadsheet =
+                 new ExcelSpreadsheet(new XSSFWorkbook(), ExcelSpreadsheet.ExcelType.XSS)) {
+            Map<String, SheetWriter> writers = new LinkedHashMap<>();
+            writers.put("A", sheet -> sheet.setCellValue(0, 0, "a"));
+            assertThrows(IllegalStateException.class, () -> spreadsheet.generateSheetsInParallel(writers, executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cellCountsAreReportedOncePerWrite() throws IOException {
+        CountingMetrics metrics = new CountingMetrics();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (ExcelSpreadsheet spreadsheet = ExcelSpreadsheet.createWorkbook("Sheet1")) {
+            spreadsheet.setMetrics(metrics);
+            for (int row = 0; row < 100; row++) {
+                spreadsheet.setCellValue(row, 0, "列" + row);
+            }
+            spreadsheet.writeRow(100, new Object[] {"a", "b", "c"}, null);
+            assertEquals(0, metrics.cellCalls.get());
+
+            spreadsheet.getBytes();
+            assertEquals(1, metrics.cellCalls.get());
+            assertEquals(103, metrics.cells.get());
+            assertEquals(1, metrics.rows.get());
+
+            Map<String, SheetWriter> writers = new LinkedHashMap<>();
+            writers.put("明細", sheet -> {
+                for (int row = 0; row < 50; row++) {
+                    sheet.setCellValue(row, 0, row);
+                }
+            });
+            spreadsheet.generateSheetsInParallel(writers, executor);
+            assertEquals(2, metrics.cellCalls.get());
+            assertEquals(153, metrics.cells.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void canWriteRepeatedlyUntilClosed() throws IOException {
+        assertWritesRepeatedly(ExcelSpreadsheet.createWorkbook(2));
+    }
+
+    @Test
+    void canWriteRepeatedlyWithCompressedTempFiles() throws IOException {
+        assertWritesRepeatedly(ExcelSpreadsheet.createWorkbook(
+            SpreadsheetTempStorage.builder().compress(true).build()));
+    }
+
+    // 超出 row window 的列已寫入暫存檔，兩次寫出的內容需相同，close 後不能再寫出
+    private static void assertWritesRepeatedly(ExcelSpreadsheet spreadsheet) throws IOException {
+        try {
+            for (int row = 0; row < 150; row++) {
+                spreadsheet.setCellValue(row, 0, "列" + row);
+            }
+            byte[] first = spreadsheet.getBytes();
+            ByteArrayOutputStream second = new ByteArrayOutputStream();
+            long written = spreadsheet.writeTo(second);
+            assertEquals(second.size(), written);
+            assertEquals("列0", readFirstColumn(first, 0));
+            assertEquals("列149", readFirstColumn(first, 149));
+            assertEquals("列0", readFirstColumn(second.toByteArray(), 0));
+            assertEquals("列149", readFirstColumn(second.toByteArray(), 149));
+        } finally {
+            spreadsheet.close();
+        }
+        assertThrows(IllegalStateException.class, spreadsheet::getBytes);
+    }
+
+    private static String readFirstColumn(byte[] content, int rowIndex) throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
+            return workbook.getSheetAt(0).getRow(rowIndex).getCell(0).getStringCellValue();
+        }
+    }
+
+    // key 依序為 1、2、3...
+    private static Map<Integer, String> labels(String... names) {
+        Map<Integer, String> labels = new LinkedHashMap<>();
+        for (String name : names) {
+            labels.put(labels.size() + 1, name);
+        }
+        return labels;
+    }
+
+    private static final class CountingMetrics implements SpreadsheetMetrics {
+        private final AtomicLong cellCalls = new AtomicLong();
+        private final AtomicLong cells = new AtomicLong();
+        private final AtomicLong rows = new AtomicLong();
+
+        @Override
+        public void cellsWritten(long count) {
+            cellCalls.incrementAndGet();
+            cells.addAndGet(count);
+        }
+
+        @Override
+        public void rowsWritten(long count) {
+            rows.addAndGet(count);
+        }
+    }
+
+    private static void assertNumeric(double expected, Cell cell) {
+        assertEquals(CellType.NUMERIC, cell.getCellType());
+        assertEquals(expected, cell.getNumericCellValue());
+    }
+
+    private static void assertText(String expected, Cell cell) {
+        assertEquals(CellType.STRING, cell.getCellType());
+        assertEquals(expected, cell.getStringCellValue());
+    }
+}
@@ -0,0 +1,260 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+
+class ExcelStreamingReaderTest {
+
+    private static final String SHEET_PATH = "xl/worksheets/sheet1.xml";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsSharedStringsNumbersDatesAndBooleans() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+            Row row = workbook.createSheet("資料").createRow(0);
+            row.createCell(0).setCellValue("共用字串");
+            row.createCell(1).setCellValue(12.5);
+            Cell date = row.createCell(2);
+            date.setCellValue(LocalDate.of(2024, 1, 5));
+            date.setCellStyle(dateStyle);
+            row.createCell(3).setCellValue(true);
+        });
+
+        List<String> values = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            assertEquals(Arrays.asList("資料"), reader.getSheetNames());
+            assertFalse(reader.isDate1904());
+            assertTrue(reader.readSheet("資料", row -> {
+                assertEquals(CellType.STRING, row.getCellType(0));
+                assertEquals(CellType.NUMERIC, row.getCellType(1));
+                assertFalse(row.isDateFormatted(1));
+                assertTrue(row.isDateFormatted(2));
+                assertEquals(CellType.BOOLEAN, row.getCellType(3));
+                values.add(row.getStringValue(0));
+                values.add(String.valueOf(row.getNumericValue(1)));
+                values.add(String.valueOf(row.getBooleanValue(3)));
+            }));
+            assertFalse(reader.readSheet("不存在", row -> values.add("unexpected")));
+        }
+        assertEquals(Arrays.asList("共用字串", "12.5", "true"), values);
+    }
+
+    @Test
+    void readsDatesOf1904Workbook() throws IOException {
+        Date[] expected = new Date[1];
+        File file = write(new XSSFWorkbook(), workbook -> {
+            CTWorkbook ctWorkbook = ((XSSFWorkbook) workbook).getCTWorkbook();
+            (ctWorkbook.isSetWorkbookPr() ? ctWorkbook.getWorkbookPr() : ctWorkbook.addNewWorkbookPr())
+                .setDate1904(true);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+            Cell date = workbook.createSheet().createRow(0).createCell(0);
+            date.setCellValue(LocalDate.of(2024, 1, 5));
+            date.setCellStyle(dateStyle);
+            expected[0] = date.getDateCellValue();
+        });
+
+        List<Date> dates = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            assertTrue(reader.isDate1904());
+            reader.readSheet(0, row -> {
+                assertTrue(row.isDate1904());
+                dates.add(row.getDateValue(0));
+            });
+        }
+        assertEquals(Arrays.asList(expected[0]), dates);
+        assertEquals(LocalDate.of(2024, 1, 5),
+            dates.get(0).toInstant().atZone(ZoneId.systemDefault()).toLocalDate());
+    }
+
+    @Test
+    void readsInlineStrings() throws IOException {
+        // SXSSF 預設以 inlineStr 寫入文字
+        File file = write(new SXSSFWorkbook(), workbook ->
+            workbook.createSheet().createRow(0).createCell(1).setCellValue("行內字串"));
+
+        List<String> values = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            reader.readSheet(0, row -> {
+                assertEquals(CellType.STRING, row.getCellType(1));
+                values.add(row.getStringValue(1));
+            });
+        }
+        assertEquals(Arrays.asList("行內字串"), values);
+    }
+
+    @Test
+    void keepsFormulaWithCachedResult() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> {
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue(21);
+            row.createCell(1).setCellFormula("A1*2");
+            workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        });
+
+        List<String> values = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            reader.readSheet(0, row -> {
+                assertEquals(CellType.FORMULA, row.getCellType(1));
+                assertEquals(CellType.NUMERIC, row.getCachedResultType(1));
+                values.add(row.getFormula(1));
+                values.add(String.valueOf(row.getNumericValue(1)));
+            });
+        }
+        assertEquals(Arrays.asList("A1*2", "42.0"), values);
+    }
+
+    @Test
+    void reportsSparseRowsAndCellsAtTheirIndex() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> {
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("a");
+            sheet.createRow(3).createCell(5).setCellValue("b");
+        });
+
+        List<String> rows = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            reader.readSheet(0, row -> rows.add(row.getRowNum() + ":" + row.getLastCellNum() + ":"
+                + row.hasCell(0) + ":" + row.getCellValue(row.getLastCellNum() - 1)));
+        }
+        assertEquals(Arrays.asList("0:1:true:a", "3:6:false:b"), rows);
+    }
+
+    @Test
+    void numbersRowsAndCellsWithoutReference() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> workbook.createSheet().createRow(0).createCell(0));
+        File rewritten = replaceSheetData(file, "<row><c t=\"inlineStr\"><is><t>x</t></is></c><c><v>2</v></c></row>"
+            + "<row><c><v>3</v></c></row>");
+
+        List<String> rows = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(rewritten)) {
+            reader.readSheet(0, row -> rows.add(row.getRowNum() + ":" + row.getStringValue(0) + ":"
+                + row.getNumericValue(1) + ":" + row.getNumericValue(0)));
+        }
+        assertEquals(Arrays.asList("0:x:2.0:0.0", "1:null:0.0:3.0"), rows);
+    }
+
+    @Test
+    void projectionSkipsOtherColumnsAndHandlerCanStop() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> {
+            Sheet sheet = workbook.createSheet();
+            for (int rowIndex = 0; rowIndex < 10; rowIndex++) {
+                Row row = sheet.createRow(rowIndex);
+                row.createCell(0).setCellValue("skip");
+                row.createCell(1).setCellValue(rowIndex);
+            }
+        });
+        BitSet columns = new BitSet();
+        columns.set(1);
+
+        List<Integer> rows = new ArrayList<>();
+        try (ExcelStreamingReader reader = ExcelStreamingReader.open(file)) {
+            reader.readSheet(0, columns, new ExcelRowHandler() {
+                @Override
+                public void handleRow(ExcelRowValues row) {
+                    assertNull(row.getCellType(0));
+                    rows.add((int) row.getNumericValue(1));
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return rows.size() == 3;
+                }
+            });
+        }
+        assertEquals(Arrays.asList(0, 1, 2), rows);
+    }
+
+    @Test
+    void openFromStreamDeletesSpooledFileOnClose() throws IOException {
+        File file = write(new XSSFWorkbook(), workbook -> workbook.createSheet("A"));
+        long before = countSpooledFiles();
+        try (InputStream is = Files.newInputStream(file.toPath());
+             ExcelStreamingReader reader = ExcelStreamingReader.open(is)) {
+            assertEquals(Arrays.asList("A"), reader.getSheetNames());
+        }
+        assertEquals(before, countSpooledFiles());
+    }
+
+    private static long countSpooledFiles() throws IOException {
+        try (java.util.stream.Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(path -> path.getFileName().toString().startsWith("excel-import-")).count();
+        }
+    }
+
+    private File write(Workbook workbook, WorkbookContent content) throws IOException {
+        File file = Files.createTempFile(tempDir, "reader-", ".xlsx").toFile();
+        try (Workbook wb = workbook; OutputStream out = Files.newOutputStream(file.toPath())) {
+            content.fill(wb);
+            wb.write(out);
+        }
+        return file;
+    }
+
+    // 以 rowsXml 取代第一個工作表的 sheetData，用於產生 POI 不會寫出的格式 (例如沒有 r 屬性的列)
+    private File replaceSheetData(File file, String rowsXml) throws IOException {
+        File target = Files.createTempFile(tempDir, "rewritten-", ".xlsx").toFile();
+        try (ZipFile zip = new ZipFile(file);
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(target.toPath()))) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                try (InputStream is = zip.getInputStream(entry)) {
+                    byte[] bytes = is.readAllBytes();
+                    if (entry.getName().equals(SHEET_PATH)) {
+                        String xml = new String(bytes, StandardCharsets.UTF_8)
+                            .replaceAll("(?s)<sheetData>.*</sheetData>|<sheetData/>",
+                                "<sheetData>" + rowsXml + "</sheetData>");
+                        bytes = xml.getBytes(StandardCharsets.UTF_8);
+                    }
+                    out.write(bytes);
+                }
+                out.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    @FunctionalInterface
+    private interface WorkbookContent {
+        void fill(Workbook workbook);
+    }
+}
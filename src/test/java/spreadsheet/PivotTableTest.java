@@ -0,0 +1,65 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class PivotTableTest {
+
+    @Test
+    void aggregatesCellsAndTotals() {
+        PivotTable<String, String> pivot = new PivotTable<>(labels("a", "b"), labels("x", "y", "z"));
+        pivot.add("a", "x", new BigDecimal("1.005"))
+            .add("a", "x", new BigDecimal("2"))
+            .add("a", "z", 150L)
+            .add("b", "y", new BigDecimal("-0.5"))
+            .add("b", "y", (BigDecimal) null);
+
+        assertEquals(new BigDecimal("3.01"), pivot.getValue(0, 0));
+        assertEquals(new BigDecimal("0.00"), pivot.getValue(0, 1));
+        assertEquals(451L, pivot.getUnscaledRowTotal(0));
+        assertEquals(-50L, pivot.getUnscaledRowTotal(1));
+        assertEquals(301L, pivot.getUnscaledColumnTotal(0));
+        assertEquals(-50L, pivot.getUnscaledColumnTotal(1));
+        assertEquals(150L, pivot.getUnscaledColumnTotal(2));
+        assertEquals(401L, pivot.getUnscaledGrandTotal());
+        assertEquals(Arrays.asList("a", "b"), pivot.getRowKeys());
+        assertEquals("Y", pivot.getColumnLabel(1));
+    }
+
+    @Test
+    void rejectsUnknownKeys() {
+        PivotTable<String, String> pivot = new PivotTable<>(labels("a"), labels("x"));
+
+        assertEquals(-1, pivot.rowIndexOf("b"));
+        assertThrows(IllegalArgumentException.class, () -> pivot.add("b", "x", 1L));
+        assertThrows(IllegalArgumentException.class, () -> pivot.add("a", "y", 1L));
+    }
+
+    @Test
+    void overflowThrowsInsteadOfWrapping() {
+        PivotTable<String, String> pivot = new PivotTable<>(labels("a", "b"), labels("x"));
+        pivot.add("a", "x", Long.MAX_VALUE).add("b", "x", 1L);
+
+        assertThrows(ArithmeticException.class, () -> pivot.add("a", "x", 1L));
+        assertThrows(ArithmeticException.class, () -> pivot.getUnscaledColumnTotal(0));
+        assertThrows(ArithmeticException.class, pivot::getUnscaledGrandTotal);
+        assertThrows(ArithmeticException.class,
+            () -> pivot.toUnscaled(BigDecimal.valueOf(Long.MAX_VALUE)));
+    }
+
+    // key 為小寫，名稱為大寫
+    private static Map<String, String> labels(String... keys) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        for (String key : keys) {
+            labels.put(key, key.toUpperCase());
+        }
+        return labels;
+    }
+}
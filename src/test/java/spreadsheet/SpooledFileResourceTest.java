@@ -0,0 +1,76 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpooledFileResourceTest {
+
+    private static final byte[] CONTENT = "spooled".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void closingInputStreamDeletesFile() throws IOException {
+        Path file = write();
+        SpooledFileResource resource = new SpooledFileResource(file, CONTENT.length);
+
+        try (InputStream is = resource.getInputStream()) {
+            assertArrayEquals(CONTENT, is.readAllBytes());
+        }
+
+        assertFalse(Files.exists(file));
+        assertFalse(resource.exists());
+        assertEquals(CONTENT.length, resource.contentLength());
+        assertThrows(FileNotFoundException.class, resource::getInputStream);
+    }
+
+    @Test
+    void closingChannelDeletesFile() throws IOException {
+        Path file = write();
+        SpooledFileResource resource = new SpooledFileResource(file, CONTENT.length);
+
+        try (ReadableByteChannel channel = resource.readableChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(CONTENT.length);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // 讀到滿或結束
+            }
+            assertArrayEquals(CONTENT, buffer.array());
+        }
+
+        assertFalse(Files.exists(file));
+        assertThrows(FileNotFoundException.class, resource::readableChannel);
+    }
+
+    @Test
+    void closeDeletesUnreadFileOnce() throws IOException {
+        Path file = write();
+        SpooledFileResource resource = new SpooledFileResource(file, CONTENT.length);
+
+        assertFalse(resource.isFile());
+        assertTrue(resource.exists());
+        resource.close();
+        resource.close();
+
+        assertFalse(Files.exists(file));
+    }
+
+    private Path write() throws IOException {
+        return Files.write(Files.createTempFile(tempDir, "export-", ".xlsx"), CONTENT);
+    }
+}
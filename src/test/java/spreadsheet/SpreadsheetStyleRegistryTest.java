@@ -0,0 +1,77 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SpreadsheetStyleRegistryTest {
+
+    private XSSFWorkbook workbook;
+    private SpreadsheetStyleRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        workbook = new XSSFWorkbook();
+        registry = new SpreadsheetStyleRegistry(workbook);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Test
+    void getCellStyleInternsEqualStyles() {
+        CellStyle first = registry.getCellStyle(ExcelSpreadsheet.cellCenterStyle());
+        CellStyle second = registry.getCellStyle(ExcelSpreadsheet.cellCenterStyle());
+
+        assertSame(first, second);
+        assertNotSame(first, registry.getCellStyle(ExcelSpreadsheet.cellLeftStyle()));
+        assertEquals(2, registry.getCellStyleCount());
+    }
+
+    @Test
+    void getBorderedStyleOnlyChangesEdgeBorders() {
+        CellStyle base = registry.getCellStyle(noBorder(ExcelSpreadsheet.cellLeftBoldStyle()));
+
+        CellStyle topLeft = registry.getBorderedStyle(base, ExcelSpreadsheet.cellCenterStyle(),
+            SpreadsheetStyleRegistry.EDGE_TOP | SpreadsheetStyleRegistry.EDGE_LEFT);
+
+        assertEquals(HorizontalAlignment.LEFT, topLeft.getAlignment());
+        assertEquals(base.getFontIndex(), topLeft.getFontIndex());
+        assertEquals(BorderStyle.THIN, topLeft.getBorderTop());
+        assertEquals(BorderStyle.THIN, topLeft.getBorderLeft());
+        assertEquals(BorderStyle.NONE, topLeft.getBorderBottom());
+        assertEquals(BorderStyle.NONE, topLeft.getBorderRight());
+        assertEquals(BorderStyle.NONE, base.getBorderTop());
+    }
+
+    @Test
+    void getBorderedStyleReusesVariants() {
+        CellStyle base = workbook.getCellStyleAt(0);
+        SpreadsheetStyle border = ExcelSpreadsheet.cellCenterStyle();
+
+        CellStyle top = registry.getBorderedStyle(base, border, SpreadsheetStyleRegistry.EDGE_TOP);
+
+        assertSame(top, registry.getBorderedStyle(base, border, SpreadsheetStyleRegistry.EDGE_TOP));
+        // 框線已相同時沿用原本的樣式
+        assertSame(top, registry.getBorderedStyle(top, border, SpreadsheetStyleRegistry.EDGE_TOP));
+        assertTrue(registry.getStyleHitCount() >= 2);
+    }
+
+    private static SpreadsheetStyle noBorder(SpreadsheetStyle style) {
+        style.setBorderStyle(TpBorderStyle.NONE);
+        return style;
+    }
+}
@@ -0,0 +1,100 @@
+package com.tp.asset_ap.spreadsheet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpreadsheetTemplateCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void preparedWorkbooksAreIndependentAndRefilled() throws IOException {
+        Path file = writeTemplate("template.xlsx");
+        List<Runnable> tasks = new ArrayList<>();
+        SpreadsheetTemplateCache cache = new SpreadsheetTemplateCache(1 << 20, 2, tasks::add,
+            ExcelSpreadsheet.buildHeaderStyle());
+
+        SpreadsheetTemplate template = cache.get(file);
+        assertEquals(2, tasks.size());
+        runAll(tasks);
+        assertEquals(2, template.getPreparedWorkbookCount());
+        assertEquals("title", template.getNamedCells().keySet().iterator().next());
+
+        try (ExcelSpreadsheet first = template.newSpreadsheet(ExcelSpreadsheet.ExcelType.XSS)) {
+            first.getSheetAt(0).setCellValue(0, 0, "已修改");
+            // 取用一份後排入一次補充
+            assertEquals(1, template.getPreparedWorkbookCount());
+            assertEquals(1, tasks.size());
+            runAll(tasks);
+            try (ExcelSpreadsheet second = template.newSpreadsheet(ExcelSpreadsheet.ExcelType.XSS)) {
+                Sheet sheet = second.getSheetAt(0).getWorkingSheet();
+                assertEquals("範本標題", sheet.getRow(0).getCell(0).getStringCellValue());
+            }
+        }
+        assertEquals(1, cache.getLoadCount());
+    }
+
+    @Test
+    void invalidatedTemplateStopsPreparing() throws IOException {
+        Path file = writeTemplate("template.xlsx");
+        List<Runnable> tasks = new ArrayList<>();
+        SpreadsheetTemplateCache cache = new SpreadsheetTemplateCache(1 << 20, 1, tasks::add);
+
+        SpreadsheetTemplate template = cache.get(file);
+        cache.invalidate(file);
+        runAll(tasks);
+        assertEquals(0, template.getPreparedWorkbookCount());
+        try (ExcelSpreadsheet spreadsheet = template.newSpreadsheet(ExcelSpreadsheet.ExcelType.XSS)) {
+            assertEquals("範本標題",
+                spreadsheet.getSheetAt(0).getWorkingSheet().getRow(0).getCell(0).getStringCellValue());
+        }
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    void withoutExecutorParsesOnCallingThread() throws IOException {
+        Path file = writeTemplate("template.xlsx");
+        SpreadsheetTemplateCache cache = new SpreadsheetTemplateCache(1 << 20);
+
+        SpreadsheetTemplate template = cache.get(file);
+        assertEquals(template, cache.get(file));
+        assertEquals(0, template.getPreparedWorkbookCount());
+        assertEquals(1, cache.getHitCount());
+        assertNull(template.getNamedCell("missing"));
+        try (ExcelSpreadsheet spreadsheet = cache.newSpreadsheet(file, ExcelSpreadsheet.ExcelType.XSS)) {
+            assertEquals(1, spreadsheet.getSheetAt(0).getWorkingSheet().getRow(0).getLastCellNum());
+        }
+    }
+
+    private static void runAll(List<Runnable> tasks) {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        pending.forEach(Runnable::run);
+    }
+
+    private Path writeTemplate(String fileName) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+            workbook.createSheet("報表").createRow(0).createCell(0).setCellValue("範本標題");
+            Name name = workbook.createName();
+            name.setNameName("title");
+            name.setRefersToFormula("'報表'!$A$1");
+            workbook.write(out);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,117 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.tp.asset_ap.util.TimeUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+class DateStringCacheTest {
+
+    private static final DateTimeFormatter[] FORMATS = {
+        DateTimeFormatter.ofPattern("yyyy/MM/dd"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")
+    };
+
+    @Test
+    void shapesMatchTimeUtils() {
+        DateStringCache cache = new DateStringCache(10_000);
+        LocalDateTime base = LocalDateTime.of(2023, 12, 25, 0, 0);
+        for (DateTimeFormatter format : FORMATS) {
+            // 跨年、閏年 2/29 與月底，時間每天不同
+            for (int day = 0; day < 500; day++) {
+                String text = base.plusDays(day).plusSeconds(day * 7919L % 86_400).format(format);
+                assertMatchesTimeUtils(cache, text);
+                // 第二次由快取取得
+                assertMatchesTimeUtils(cache, text);
+            }
+        }
+    }
+
+    @Test
+    void fieldsOutOfRangeFollowTimeUtils() {
+        DateStringCache cache = new DateStringCache(10_000);
+        // 先讓各格式完成比對，之後的文字走直接計算的路徑
+        for (String text : Arrays.asList("2024/01/05", "2024-01-05", "2024-01-05T10:30:00")) {
+            assertMatchesTimeUtils(cache, text);
+        }
+        for (String text : Arrays.asList("2024/02/30", "2023/02/29", "2024/13/01", "2024/00/10", "0000/01/01",
+            "1500/01/01", "1582/10/10", "1899/12/31", "2024-04-31", "2024-01-00",
+            "2024-01-05T24:00:00", "2024-01-05T10:60:00", "2024-01-05T10:30:61")) {
+            assertMatchesTimeUtils(cache, text);
+        }
+    }
+
+    @Test
+    void otherTextsFollowTimeUtils() {
+        DateStringCache cache = new DateStringCache(10_000);
+        for (String text : Arrays.asList("2024/1/5", "2024/01/05 10:30", "2024.01.05", "2024/01/05 ", "2024-01-05T10:30",
+            "２０２４/01/05", "abc", "")) {
+            assertMatchesTimeUtils(cache, text);
+        }
+    }
+
+    @Test
+    void daylightSavingTransitionsFollowTimeUtils() {
+        TimeZone original = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            DateStringCache cache = new DateStringCache(10_000);
+            // 02:30 在 3/10 不存在、在 11/3 出現兩次
+            for (String text : Arrays.asList("2024-03-09T02:30:00", "2024-03-10T02:30:00", "2024-03-10T03:30:00",
+                "2024-11-03T01:30:00", "2024-11-03T02:30:00", "2024/03/10", "2024/11/03", "2024-03-10")) {
+                assertMatchesTimeUtils(cache, text);
+            }
+        } finally {
+            TimeZone.setDefault(original);
+        }
+    }
+
+    @Test
+    void textsBeyondMaxEntriesAreStillConverted() {
+        DateStringCache cache = new DateStringCache(4);
+        List<String> texts = new ArrayList<>();
+        for (int day = 0; day < 20; day++) {
+            texts.add(LocalDateTime.of(2024, 1, 1, 0, 0).plusDays(day).format(FORMATS[0]));
+        }
+        texts.add("2024/02/30");
+        for (int round = 0; round < 2; round++) {
+            for (String text : texts) {
+                assertMatchesTimeUtils(cache, text);
+            }
+        }
+    }
+
+    // isValidDateFormat 以 toMillis 取代 TimeUtils.isValidDateString，兩者需對每個文字得到相同結果
+    private static void assertMatchesTimeUtils(DateStringCache cache, String text) {
+        long millis = cache.toMillis(text);
+        assertEquals(expectedMillis(text), millis, text);
+        assertEquals(isValidDateString(text), millis != DateStringCache.INVALID, text);
+    }
+
+    private static boolean isValidDateString(String text) {
+        try {
+            return TimeUtils.isValidDateString(text);
+        } catch (RuntimeException ex) {
+            return false;
+        }
+    }
+
+    private static long expectedMillis(String text) {
+        try {
+            Date date = TimeUtils.toDate(text);
+            return date == null ? DateStringCache.INVALID : date.getTime();
+        } catch (RuntimeException ex) {
+            return DateStringCache.INVALID;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.tp.asset_ap.exception.InternalServerErrorException;
+import com.tp.asset_ap.spreadsheet.ExcelColumn;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class ExcelImportBinderTest {
+
+    @Test
+    void bindsFieldsDeclaredInSuperclass() throws IOException {
+        ExcelImportBinder<AssetRow> binder = ExcelImportBinder.of(AssetRow.class);
+        AnnotatedExcelParser<AssetRow> parser = new AnnotatedExcelParser<>(AssetRow.class, 5);
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue("筆電");
+            row.createCell(1).setCellValue(3);
+            Cell date = row.createCell(2);
+            date.setCellValue(LocalDate.of(2024, 1, 5));
+            date.setCellStyle(dateStyle);
+
+            AssetRow asset = binder.bind(parser, row);
+            assertEquals("筆電", asset.name);
+            assertEquals(3, asset.quantity);
+            assertEquals(date.getDateCellValue().getTime(), asset.purchaseDate);
+            assertEquals(0, binder.getValidator().validate(parser, row));
+        }
+
+        BitSet expected = new BitSet();
+        expected.set(0, 3);
+        assertEquals(expected, binder.getColumnProjection());
+    }
+
+    @Test
+    void requiredRuleOfSuperclassFieldApplies() throws IOException {
+        ExcelImportBinder<AssetRow> binder = ExcelImportBinder.of(AssetRow.class);
+        AnnotatedExcelParser<AssetRow> parser = new AnnotatedExcelParser<>(AssetRow.class, 5);
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(1).setCellValue(3);
+            assertNotEquals(0, binder.getValidator().validate(parser, row));
+        }
+    }
+
+    @Test
+    void bindsPrimitiveIntAndLongFields() throws IOException {
+        ExcelImportBinder<PrimitiveRow> binder = ExcelImportBinder.of(PrimitiveRow.class);
+        AnnotatedExcelParser<PrimitiveRow> parser = new AnnotatedExcelParser<>(PrimitiveRow.class, 5);
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd"));
+            Row row = workbook.createSheet().createRow(0);
+            row.createCell(0).setCellValue(7);
+            row.createCell(1).setCellValue(-2);
+            Cell date = row.createCell(2);
+            date.setCellValue(LocalDate.of(2024, 1, 5));
+            date.setCellStyle(dateStyle);
+            row.createCell(3).setCellValue("備註");
+
+            PrimitiveRow bound = binder.bind(parser, row);
+            assertEquals(7, bound.quantity);
+            assertEquals(-2, bound.floor);
+            assertEquals(date.getDateCellValue().getTime(), bound.purchaseDate);
+            assertEquals(PrimitiveRow.NO_DATE, bound.disposalDate);
+            assertEquals("備註", bound.note);
+
+            // 沒有值的欄位維持預設值，不沿用前一列的結果
+            Row empty = row.getSheet().createRow(1);
+            empty.createCell(1).setCellValue(4);
+            PrimitiveRow emptyBound = binder.bind(parser, empty);
+            assertEquals(PrimitiveRow.NO_QUANTITY, emptyBound.quantity);
+            assertEquals(4, emptyBound.floor);
+            assertEquals(PrimitiveRow.NO_DATE, emptyBound.purchaseDate);
+        }
+    }
+
+    @Test
+    void longFieldRequiresExplicitTimeStamp() {
+        assertThrows(InternalServerErrorException.class, () -> ExcelImportBinder.of(AutoLongRow.class));
+        assertThrows(InternalServerErrorException.class, () -> ExcelImportBinder.of(ExportOnlyLongRow.class));
+    }
+
+    static class NamedRow {
+        @ExcelImportColumn(colIndex = 0, requiredNameKey = "名稱")
+        String name;
+    }
+
+    static class AssetRow extends NamedRow {
+        @ExcelImportColumn(colIndex = 1)
+        private int quantity;
+
+        @ExcelImportColumn(colIndex = 2, type = ExcelImportType.TIMESTAMP)
+        private Long purchaseDate;
+    }
+
+    static class PrimitiveRow {
+        static final int NO_QUANTITY = -1;
+        static final long NO_DATE = -1L;
+
+        @ExcelImportColumn(colIndex = 0)
+        private int quantity = NO_QUANTITY;
+
+        @ExcelImportColumn(colIndex = 1)
+        private int floor;
+
+        @ExcelImportColumn(colIndex = 2, type = ExcelImportType.TIMESTAMP)
+        private long purchaseDate = NO_DATE;
+
+        @ExcelImportColumn(colIndex = 4, type = ExcelImportType.TIMESTAMP)
+        private long disposalDate = NO_DATE;
+
+        @ExcelImportColumn(colIndex = 3)
+        private String note;
+    }
+
+    static class AutoLongRow {
+        @ExcelImportColumn(colIndex = 0)
+        private Long amount;
+    }
+
+    // 只有 @ExcelColumn 的欄位轉換方式為 AUTO
+    static class ExportOnlyLongRow {
+        @ExcelColumn(colIndex = 0, colName = "金額")
+        private Long amount;
+    }
+}
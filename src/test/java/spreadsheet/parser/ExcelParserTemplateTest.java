@@ -0,0 +1,171 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tp.asset_ap.util.LocaleUtils;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.BitSet;
+import java.util.TimeZone;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+
+class ExcelParserTemplateTest {
+
+    @Test
+    void serialDatesMatchDateUtil() throws IOException {
+        // 含 1900 年不存在的 2/29 (序號 60) 前後、小數的時間與月底
+        double[] serials = {1, 31, 59, 60, 61, 62, 100.5, 36981.25, 45351, 45352, 45296.999988};
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createDateRow(workbook, serials);
+            Converter converter = new Converter();
+            for (int i = 0; i < serials.length; i++) {
+                assertEquals(DateUtil.getJavaDate(serials[i], false).getTime(),
+                    converter.convertCellValueToTimeStamp(row.getCell(i)), "serial " + serials[i]);
+            }
+        }
+    }
+
+    @Test
+    void serialDatesKeepDayOfMonthAndTime() throws IOException {
+        double[] serials = {1, 59, 61, 45351, 45352, 45296.5};
+        LocalDateTime[] expected = {
+            LocalDateTime.of(1900, 1, 1, 0, 0),
+            LocalDateTime.of(1900, 2, 28, 0, 0),
+            LocalDateTime.of(1900, 3, 1, 0, 0),
+            LocalDateTime.of(2024, 2, 29, 0, 0),
+            LocalDateTime.of(2024, 3, 1, 0, 0),
+            LocalDateTime.of(2024, 1, 5, 12, 0)
+        };
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createDateRow(workbook, serials);
+            Converter converter = new Converter();
+            for (int i = 0; i < serials.length; i++) {
+                assertEquals(expected[i], toLocal(converter.convertCellValueToTimeStamp(row.getCell(i))));
+            }
+        }
+    }
+
+    @Test
+    void daylightSavingDaysFallBackToDateUtil() throws IOException {
+        // 2024-03-10 與 2024-11-03 為 New York 的時區轉換日
+        double[] serials = {45361, 45361.125, 45361.5, 45599, 45599.0625, 45600};
+        TimeZone original = LocaleUtil.getUserTimeZone();
+        LocaleUtil.setUserTimeZone(TimeZone.getTimeZone("America/New_York"));
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createDateRow(workbook, serials);
+            Converter converter = new Converter();
+            for (int i = 0; i < serials.length; i++) {
+                assertEquals(DateUtil.getJavaDate(serials[i], false).getTime(),
+                    converter.convertCellValueToTimeStamp(row.getCell(i)), "serial " + serials[i]);
+            }
+        } finally {
+            LocaleUtil.setUserTimeZone(original);
+        }
+    }
+
+    @Test
+    void date1904WorkbookUsesItsOwnEpoch() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CTWorkbook ctWorkbook = workbook.getCTWorkbook();
+            (ctWorkbook.isSetWorkbookPr() ? ctWorkbook.getWorkbookPr() : ctWorkbook.addNewWorkbookPr())
+                .setDate1904(true);
+            assertTrue(workbook.isDate1904());
+            // 1904 日期系統的 43834 為 2024-01-05
+            Row row = createDateRow(workbook, 43834);
+            assertEquals(LocalDateTime.of(2024, 1, 5, 0, 0),
+                toLocal(new Converter().convertCellValueToTimeStamp(row.getCell(0))));
+        }
+    }
+
+    @Test
+    void numberWithoutDateFormatIsInvalidDate() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createDateRow(workbook, 45296);
+            row.createCell(1).setCellValue(45296);
+            row.createCell(2).setCellValue(-1);
+            Converter converter = new Converter();
+
+            assertTrue(converter.isValidDateFormat(row.getCell(0)));
+            assertTrue(converter.isValidDateFormat(row.getCell(3)));
+            assertFalse(converter.isValidDateFormat(row.getCell(1)));
+            assertNull(converter.convertCellValueToTimeStamp(row.getCell(1)));
+            assertFalse(converter.isValidDateFormat(row.getCell(2)));
+
+            RowValidator validator = RowValidator.builder().date(0, 1).build();
+            long failures = validator.validate(converter, row);
+            assertEquals(LocaleUtils.get("ExcelParser.invalid.dateTime") + "\n", validator.getMessage(failures));
+            assertEquals(0, RowValidator.builder().date(0).build().validate(converter, row));
+        }
+    }
+
+    @Test
+    void primitiveConversionsMarkNullColumns() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Row row = createDateRow(workbook, 45296, 45297.5);
+            row.createCell(2).setCellValue(12);
+            row.createCell(3).setCellValue("abc");
+            row.createCell(4).setCellValue("2024/01/05");
+            Converter converter = new Converter();
+            BitSet nullColumns = new BitSet();
+            nullColumns.set(5);
+
+            int[] intColumns = {2, 3, 6};
+            int[] ints = {-1, -1, -1};
+            converter.convertCellValuesToInt(row, intColumns, ints, nullColumns);
+            assertArrayEquals(new int[] {12, 0, 0}, ints);
+            assertEquals(BitSet.valueOf(new long[] {0b110}), nullColumns);
+
+            int[] dateColumns = {0, 1, 2, 4, 6};
+            long[] millis = new long[dateColumns.length];
+            converter.convertCellValuesToTimeStamp(row, dateColumns, millis, nullColumns);
+            for (int i = 0; i < dateColumns.length; i++) {
+                Long expected = converter.convertCellValueToTimeStamp(row.getCell(dateColumns[i]));
+                assertEquals(expected == null, nullColumns.get(i), "column " + dateColumns[i]);
+                assertEquals(expected == null ? 0 : expected, millis[i], "column " + dateColumns[i]);
+            }
+            assertEquals(BitSet.valueOf(new long[] {0b10100}), nullColumns);
+        }
+    }
+
+    // 第一列依序為 serials，皆為日期格式
+    private static Row createDateRow(XSSFWorkbook workbook, double... serials) {
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd hh:mm:ss"));
+        Sheet sheet = workbook.createSheet();
+        Row row = sheet.createRow(0);
+        for (int i = 0; i < serials.length; i++) {
+            Cell cell = row.createCell(i);
+            cell.setCellValue(serials[i]);
+            cell.setCellStyle(dateStyle);
+        }
+        return row;
+    }
+
+    private static LocalDateTime toLocal(Long millis) {
+        return Instant.ofEpochMilli(millis)
+            .atZone(ZoneId.of(LocaleUtil.getUserTimeZone().getID())).toLocalDateTime();
+    }
+
+    private static final class Converter extends ExcelParserTemplate<Void> {
+        @Override
+        protected Void parseEachRowData(int rowStart, int rowEnd, Sheet sheet) {
+            return null;
+        }
+    }
+}
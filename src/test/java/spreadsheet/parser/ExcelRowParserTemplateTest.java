@@ -0,0 +1,172 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.tp.asset_ap.exception.BadRequestException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorkbook;
+
+class ExcelRowParserTemplateTest {
+
+    // 超過一個平行視窗 (8192 列)
+    private static final int DATA_ROWS = 10_000;
+    private static final int ERROR_CELL_INDEX = 5;
+
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void parallelMatchesSequential() throws IOException {
+        assertParallelMatchesSequential(false);
+    }
+
+    @Test
+    void parallelMatchesSequentialFor1904Dates() throws IOException {
+        assertParallelMatchesSequential(true);
+    }
+
+    private static void assertParallelMatchesSequential(boolean date1904) throws IOException {
+        try (XSSFWorkbook sequentialBook = createWorkbook(date1904);
+             XSSFWorkbook parallelBook = createWorkbook(date1904)) {
+            SampleParser sequential = new SampleParser();
+            Map<Integer, String> sequentialRows = new LinkedHashMap<>();
+            long sequentialCount = sequential.parse(sequentialBook, 0, sequentialRows::putAll, 500);
+
+            SampleParser parallel = new SampleParser();
+            Map<Integer, String> parallelRows = new LinkedHashMap<>();
+            long parallelCount = parallel.parseInParallel(parallelBook, 0, parallelRows::putAll, 500, pool);
+
+            assertEquals(sequentialCount, parallelCount);
+            assertEquals(sequentialRows, parallelRows);
+            assertEquals(sequential.getRowErrors(), parallel.getRowErrors());
+            assertTrue(parallel.getRowErrors().size() > DATA_ROWS / 8);
+            // 每個 buffer 各自保留日期樣式判斷，數量不超過 pool 的平行度，解析結束後清除
+            assertEquals(0, sequential.maxBufferDateStyles.get());
+            assertTrue(parallel.maxBufferDateStyles.get() >= 1);
+            assertTrue(parallel.maxBufferDateStyles.get() <= pool.getParallelism());
+            assertEquals(0, parallel.getBufferDateStylesCount());
+            // 錯誤訊息寫回相同的列
+            for (Integer rowNum : parallel.getRowErrors().keySet()) {
+                assertEquals(
+                    sequentialBook.getSheetAt(0).getRow(rowNum).getCell(ERROR_CELL_INDEX).getStringCellValue(),
+                    parallelBook.getSheetAt(0).getRow(rowNum).getCell(ERROR_CELL_INDEX).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    void streamingMatchesSequentialFor1904Dates() throws IOException {
+        try (XSSFWorkbook workbook = createWorkbook(true)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+
+            SampleParser sequential = new SampleParser();
+            Map<Integer, String> sequentialRows = new LinkedHashMap<>();
+            long sequentialCount = sequential.parse(workbook, 0, sequentialRows::putAll, 500);
+
+            SampleParser streaming = new SampleParser();
+            Map<Integer, String> streamingRows = new LinkedHashMap<>();
+            long streamingCount = streaming.parseStreaming(
+                new ByteArrayInputStream(out.toByteArray()), 0, streamingRows::putAll, 500);
+
+            assertEquals(sequentialCount, streamingCount);
+            assertEquals(sequentialRows, streamingRows);
+            assertEquals(sequential.getRowErrors(), streaming.getRowErrors());
+        }
+    }
+
+    // 前 3 列為標題，每 7 列缺少名稱 (驗證失敗)，每 11 列為空白列 (略過)
+    private static XSSFWorkbook createWorkbook(boolean date1904) {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        CTWorkbook ctWorkbook = workbook.getCTWorkbook();
+        (ctWorkbook.isSetWorkbookPr() ? ctWorkbook.getWorkbookPr() : ctWorkbook.addNewWorkbookPr())
+            .setDate1904(date1904);
+        assertEquals(date1904, workbook.isDate1904());
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy/mm/dd hh:mm"));
+        Sheet sheet = workbook.createSheet();
+        for (int rowNum = 0; rowNum < 3; rowNum++) {
+            sheet.createRow(rowNum).createCell(0).setCellValue("標題");
+        }
+        LocalDateTime base = LocalDateTime.of(2020, 1, 1, 8, 30);
+        for (int i = 0; i < DATA_ROWS; i++) {
+            Row row = sheet.createRow(3 + i);
+            if (i % 11 == 10) {
+                continue;
+            }
+            if (i % 7 != 0) {
+                row.createCell(0).setCellValue("資產" + i);
+            }
+            row.createCell(1).setCellValue(i % 3 == 0 ? String.valueOf(i) : null);
+            if (i % 3 != 0) {
+                row.getCell(1).setCellValue(i * 1.5);
+            }
+            Cell date = row.createCell(2);
+            if (i % 5 == 0) {
+                date.setCellValue("2024/02/" + (10 + i % 20));
+            } else {
+                date.setCellValue(base.plusHours(i * 7L));
+                date.setCellStyle(dateStyle);
+            }
+            row.createCell(3).setCellValue(i % 2 == 0);
+        }
+        return workbook;
+    }
+
+    private static final class SampleParser extends ExcelRowParserTemplate<String> {
+
+        private final AtomicInteger maxBufferDateStyles = new AtomicInteger();
+
+        @Override
+        protected int getErrorCellIndex() {
+            return ERROR_CELL_INDEX;
+        }
+
+        @Override
+        public void validRowData(Row row) throws BadRequestException {
+            if (cellIsEmpty(getCell(row, 0))) {
+                throw new BadRequestException("名稱不可為空");
+            }
+            if (!isValidDateFormat(getCell(row, 2))) {
+                throw new BadRequestException("日期格式錯誤");
+            }
+        }
+
+        @Override
+        protected String convertRowData(Row row) {
+            maxBufferDateStyles.accumulateAndGet(getBufferDateStylesCount(), Math::max);
+            return convertCellValueToString(getCell(row, 0)) + "|"
+                + convertCellValueToInteger(getCell(row, 1)) + "|"
+                + convertCellValueToString(getCell(row, 1)) + "|"
+                + convertCellValueToTimeStamp(getCell(row, 2)) + "|"
+                + getCell(row, 3).getBooleanCellValue();
+        }
+    }
+}
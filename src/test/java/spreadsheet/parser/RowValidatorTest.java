@@ -0,0 +1,95 @@
+package com.tp.asset_ap.spreadsheet.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.tp.asset_ap.util.LocaleUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+class RowValidatorTest {
+
+    private static final Set<String> STATUS_CODES = new HashSet<>(Arrays.asList("1", "2", "停用"));
+    private static final Set<String> TYPE_CODES = new HashSet<>(Arrays.asList("A", "B"));
+
+    private static final RowValidator VALIDATOR = RowValidator.builder()
+        .required(0, "名稱")
+        .integer(1)
+        .code(2, STATUS_CODES, "ExcelParser.invalid.status")
+        .code(3, TYPE_CODES, "ExcelParser.invalid.type")
+        .build();
+
+    @Test
+    void codeRuleAcceptsAllowedAndEmptyCells() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row text = row(sheet, 0, "筆電", "停用", "A");
+            Row number = sheet.createRow(1);
+            number.createCell(0).setCellValue("螢幕");
+            // 數值依 convertCellValueToString 轉為 "2"
+            number.createCell(2).setCellValue(2);
+
+            Converter converter = new Converter();
+            assertEquals(0, VALIDATOR.validate(converter, text));
+            assertEquals(0, VALIDATOR.validate(converter, number));
+        }
+    }
+
+    @Test
+    void eachCodeRuleHasItsOwnMessageAfterOtherRules() throws IOException {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Converter converter = new Converter();
+
+            long statusOnly = VALIDATOR.validate(converter, row(sheet, 0, "筆電", "3", "A"));
+            assertEquals(LocaleUtils.get("ExcelParser.invalid.status") + "\n", VALIDATOR.getMessage(statusOnly));
+
+            long typeOnly = VALIDATOR.validate(converter, row(sheet, 1, "筆電", "1", "C"));
+            assertEquals(LocaleUtils.get("ExcelParser.invalid.type") + "\n", VALIDATOR.getMessage(typeOnly));
+
+            long all = VALIDATOR.validate(converter, row(sheet, 2, null, "3", "C"));
+            assertEquals(LocaleUtils.get("ExcelParser.required", LocaleUtils.get("名稱")) + "\n"
+                    + LocaleUtils.get("ExcelParser.invalid.status") + "\n"
+                    + LocaleUtils.get("ExcelParser.invalid.type") + "\n",
+                VALIDATOR.getMessage(all));
+        }
+    }
+
+    @Test
+    void codeRulesCountTowardsRuleLimit() {
+        RowValidator.Builder builder = RowValidator.builder();
+        for (int col = 0; col < Long.SIZE - 2; col++) {
+            builder.required(col, "欄位" + col);
+        }
+        builder.build();
+        builder.code(0, TYPE_CODES, "ExcelParser.invalid.type");
+        assertThrows(IllegalArgumentException.class, builder::build);
+    }
+
+    // 第 0、2、3 欄依序為 name、status、type，null 表示不建立儲存格
+    private static Row row(Sheet sheet, int rowIndex, String name, String status, String type) {
+        Row row = sheet.createRow(rowIndex);
+        String[] values = {name, null, status, type};
+        for (int col = 0; col < values.length; col++) {
+            if (values[col] != null) {
+                row.createCell(col).setCellValue(values[col]);
+            }
+        }
+        return row;
+    }
+
+    private static final class Converter extends ExcelParserTemplate<Void> {
+        @Override
+        protected Void parseEachRowData(int rowStart, int rowEnd, Sheet sheet) {
+            return null;
+        }
+    }
+}